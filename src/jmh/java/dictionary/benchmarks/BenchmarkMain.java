@@ -0,0 +1,30 @@
+package dictionary.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so the results include the allocation rate
+ * (gc.alloc.rate.norm is bytes allocated per operation) next to throughput and average time.
+ * Takes the usual JMH command line options, for example
+ * <pre>
+ *  mvn -P jmh package
+ *  java -jar target/benchmarks.jar                 (everything, about 15 minutes)
+ *  java -jar target/benchmarks.jar Lookup -p prefixLength=4
+ *  java -jar target/benchmarks.jar -rf json -rff baseline.json
+ * </pre>
+ * Run it from the project directory, so input/words_ospd.txt is found.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,61 @@
+package dictionary.benchmarks;
+
+import dictionary.CompactPrefixTree;
+import dictionary.CompactPrefixTreeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Building the tree for the whole word list */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildBenchmark {
+    private List<String> sorted;
+    private List<String> shuffled;
+
+    @Setup
+    public void setup() {
+        sorted = Words.load();
+        shuffled = new ArrayList<>(sorted);
+        Collections.shuffle(shuffled, new Random(42));
+    }
+
+    /* The file constructor: reading the file and the one-pass sorted build */
+    @Benchmark
+    public CompactPrefixTree fromFile() {
+        return new CompactPrefixTree(Words.FILE);
+    }
+
+    /* The builder on words already in memory */
+    @Benchmark
+    public CompactPrefixTree builderSorted() {
+        return new CompactPrefixTreeBuilder().addAll(sorted).build();
+    }
+
+    /* add() one word at a time, in random order */
+    @Benchmark
+    public CompactPrefixTree addShuffled() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : shuffled) {
+            tree.add(word);
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,100 @@
+package dictionary.benchmarks;
+
+import dictionary.CompactPrefixTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * check and checkPrefix. Every call looks up the next of 4096 random inputs, so the
+ * results include the cache misses of walking different paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    private static final int INPUTS = 4096; // power of two
+
+    private CompactPrefixTree tree;
+    private String[] hits; // words in the dictionary
+    private String[] misses; // words with one letter changed, not in the dictionary
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<String> words = Words.load();
+        tree = new CompactPrefixTree(Words.FILE);
+        Random random = new Random(42);
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled, random);
+
+        hits = new String[INPUTS];
+        misses = new String[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            String word = shuffled.get(i);
+            hits[i] = word;
+            String miss;
+            do { // change one letter until it is not a word
+                char[] chars = word.toCharArray();
+                chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+                miss = new String(chars) + (random.nextInt(4) == 0 ? "q" : "");
+            } while (tree.check(miss));
+            misses[i] = miss;
+        }
+    }
+
+    @Benchmark
+    public boolean checkHit() {
+        return tree.check(hits[next++ & (INPUTS - 1)]);
+    }
+
+    @Benchmark
+    public boolean checkMiss() {
+        return tree.check(misses[next++ & (INPUTS - 1)]);
+    }
+
+    @Benchmark
+    public boolean checkPrefix(Prefixes prefixes) {
+        return tree.checkPrefix(prefixes.prefixes[next++ & (INPUTS - 1)]);
+    }
+
+    /** Inputs for checkPrefix: prefixes of random words */
+    @State(Scope.Thread)
+    public static class Prefixes {
+        @Param({"2", "4", "8"})
+        public int prefixLength;
+
+        String[] prefixes;
+
+        @Setup
+        public void setup() {
+            List<String> shuffled = new ArrayList<>(Words.load());
+            Collections.shuffle(shuffled, new Random(43));
+            prefixes = new String[INPUTS];
+            int p = 0;
+            for (int i = 0; i < INPUTS; i++) {
+                while (shuffled.get(p).length() < prefixLength) {
+                    p++;
+                }
+                prefixes[i] = shuffled.get(p++).substring(0, prefixLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dictionary.benchmarks;
+
+import dictionary.CompactPrefixTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** toString and printTree of the whole tree */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PrintBenchmark {
+    private CompactPrefixTree tree;
+    private File output;
+
+    @Setup
+    public void setup() throws IOException {
+        tree = new CompactPrefixTree(Words.FILE);
+        output = File.createTempFile("printTree", ".txt");
+    }
+
+    @TearDown
+    public void tearDown() {
+        output.delete();
+    }
+
+    @Benchmark
+    public String toStringTree() {
+        return tree.toString();
+    }
+
+    @Benchmark
+    public void printTree() {
+        tree.printTree(output.getPath());
+    }
+}
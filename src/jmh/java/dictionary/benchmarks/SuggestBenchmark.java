@@ -0,0 +1,44 @@
+package dictionary.benchmarks;
+
+import dictionary.CompactPrefixTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** suggest for common misspellings, cycling through Words.MISSPELLINGS */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestBenchmark {
+
+    @Param({"1", "5", "10"})
+    public int numSuggestions;
+
+    private CompactPrefixTree tree;
+    private int next;
+
+    @Setup
+    public void setup() {
+        tree = new CompactPrefixTree(Words.FILE);
+    }
+
+    @Benchmark
+    public String[] suggest() {
+        String word = Words.MISSPELLINGS[next];
+        next = (next + 1) % Words.MISSPELLINGS.length;
+        return tree.suggest(word, numSuggestions);
+    }
+}
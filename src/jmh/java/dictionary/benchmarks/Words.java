@@ -0,0 +1,33 @@
+package dictionary.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The word list used by all benchmarks. Read from input/words_ospd.txt, relative to the
+ * directory the benchmarks are started in, unless the system property dictionary.words
+ * names another file.
+ */
+final class Words {
+    static final String FILE = System.getProperty("dictionary.words", "input/words_ospd.txt");
+
+    // common misspellings, none of them in the word list
+    static final String[] MISSPELLINGS = {"definately", "recieve", "seperate", "occured", "wierd", "untill",
+            "acommodate", "beleive", "truely", "goverment", "tommorow", "neccessary", "teh", "freind", "becuase"};
+
+    private Words() {
+    }
+
+    /* Every word of the word list, in file order (sorted) */
+    static List<String> load() {
+        try {
+            return Files.readAllLines(Paths.get(FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("can't read the word list " + FILE
+                    + ", run from the project directory or set -Ddictionary.words", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package dictionary;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Looks up many words in one walk over the tree.
+ *
+ * Words that appear several times (after folding their case) are looked up once.
+ * The walk goes down the tree once for each group of words that continue with the same
+ * character, instead of once for every word: a node on the path of many words is found and
+ * compared only once, while it is still in the cache. At every node the words that reach it are
+ * grouped by their next character (a sort of packed (char, word index) longs, so no strings are
+ * compared), which altogether sorts the words the way a most-significant-digit radix sort would.
+ * Results are stored in the caller's order.
+ */
+final class BatchLookup<N> {
+    private final TrieNavigator<N> trie;
+    private final String[] words; // the distinct words, folded
+    private final int[] order; // indices of words; each walk call reorders its own range
+    private final long[] keys; // scratch space for grouping a range by the next char
+    private final boolean[] found; // found[i] is true if words[i] is in the tree
+
+    private BatchLookup(TrieNavigator<N> trie, CaseFolding folding, String[] words, int[] distinct) {
+        this.trie = trie;
+        HashMap<String, Integer> index = new HashMap<>();
+        String[] unique = new String[words.length];
+        for (int i = 0; i < words.length; i++) {
+            String word = folding.fold(words[i]);
+            Integer previous = index.putIfAbsent(word, index.size());
+            if (previous == null) {
+                unique[index.size() - 1] = word;
+            }
+            distinct[i] = previous == null ? index.size() - 1 : previous;
+        }
+        int n = index.size();
+        this.words = Arrays.copyOf(unique, n);
+        order = new int[n];
+        keys = new long[n];
+        found = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Checks every word, out[i] is set to true if words[i] is in the dictionary
+     *
+     * @param trie    the tree layout
+     * @param root    the root of the tree, may be null for an empty tree
+     * @param folding the case folding of the tree
+     * @param words   the words to check
+     * @param out     the results, must be at least as long as words
+     * @param <N>     the node type of the layout
+     */
+    static <N> void checkAll(TrieNavigator<N> trie, N root, CaseFolding folding, String[] words, boolean[] out) {
+        if (out.length < words.length) {
+            throw new IllegalArgumentException("out has room for " + out.length + " results, need " + words.length);
+        }
+        if (root == null) {
+            Arrays.fill(out, 0, words.length, false);
+            return;
+        }
+        int[] distinct = new int[words.length]; // index of each word among the distinct words
+        BatchLookup<N> lookup = new BatchLookup<>(trie, folding, words, distinct);
+        lookup.walk(root, 0, 0, lookup.words.length);
+        for (int i = 0; i < words.length; i++) {
+            out[i] = lookup.found[distinct[i]];
+        }
+    }
+
+    /**
+     * Returns suggestions for every word. Checks all the words in one walk, and
+     * computes suggestions only once for words that appear several times.
+     *
+     * @param trie           the tree layout
+     * @param root           the root of the tree, may be null for an empty tree
+     * @param folding        the case folding of the tree
+     * @param words          the target words
+     * @param numSuggestions the number of suggestions for each word
+     * @param transpositions whether swapping two adjacent letters counts as one edit
+     * @param <N>            the node type of the layout
+     * @return result[i] are the suggestions for words[i], the same as Dictionary.suggest would give
+     */
+    static <N> String[][] suggestAll(TrieNavigator<N> trie, N root, CaseFolding folding, String[] words,
+                                     int numSuggestions, boolean transpositions) {
+        boolean[] found = new boolean[words.length];
+        checkAll(trie, root, folding, words, found);
+        HashMap<String, String[]> computed = new HashMap<>();
+        String[][] results = new String[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            if (found[i]) {
+                results[i] = new String[]{words[i]};
+            } else {
+                String key = folding.fold(words[i]);
+                String[] suggestions = computed.get(key);
+                if (suggestions == null) {
+                    suggestions = Suggester.suggest(trie, root, key, numSuggestions, transpositions);
+                    computed.put(key, suggestions);
+                }
+                results[i] = suggestions.clone();
+            }
+        }
+        return results;
+    }
+
+    /* Resolves the words order[lo..hi), all of which start with the chars on the path to node (depth chars) */
+    private void walk(N node, int depth, int lo, int hi) {
+        // group by the char after the path; words that end here get key 0 and come first
+        for (int i = lo; i < hi; i++) {
+            String word = words[order[i]];
+            long key = word.length() == depth ? 0 : word.charAt(depth) + 1;
+            keys[i] = key << 32 | order[i];
+        }
+        Arrays.sort(keys, lo, hi);
+        for (int i = lo; i < hi; i++) {
+            order[i] = (int) keys[i];
+        }
+
+        while (lo < hi && words[order[lo]].length() == depth) {
+            found[order[lo]] = trie.isWord(node);
+            lo++;
+        }
+        while (lo < hi) {
+            char c = words[order[lo]].charAt(depth);
+            int end = lo + 1;
+            while (end < hi && words[order[end]].charAt(depth) == c) {
+                end++;
+            }
+            N child = trie.child(node, c);
+            if (child != null) {
+                // move the words that contain the whole label of the child to the front of the group
+                int length = trie.labelLength(child);
+                int matched = lo;
+                for (int i = lo; i < end; i++) {
+                    if (containsLabel(words[order[i]], depth, child, length)) {
+                        int swap = order[matched];
+                        order[matched++] = order[i];
+                        order[i] = swap;
+                    }
+                }
+                if (matched > lo) {
+                    walk(child, depth + length, lo, matched);
+                }
+            }
+            lo = end;
+        }
+    }
+
+    /* true if word has the label of node, of the given length, at index depth */
+    private boolean containsLabel(String word, int depth, N node, int length) {
+        if (word.length() - depth < length) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) { // the first char was matched by child()
+            if (word.charAt(depth + i) != trie.labelChar(node, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
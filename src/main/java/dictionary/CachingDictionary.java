@@ -0,0 +1,360 @@
+package dictionary;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Dictionary that remembers the suggestions computed by another Dictionary, for
+ * workloads where the same misspellings are looked up again and again.
+ *
+ * Results are cached by (word with its case folded like the dictionary's, numSuggestions), only for words that are not in the
+ * dictionary (a word that is found is answered by check). The cache holds at most maxEntries
+ * results and about maxBytes of them. It evicts the least recently used result, but only
+ * admits a new result in its place if the new word has been asked for more often recently
+ * (TinyLFU admission), so a burst of one-off typos can't push out the frequent ones.
+ * Frequencies are estimated with a small count-min sketch that is halved periodically.
+ *
+ * add(word) removes every cached result the new word could change: the results whose word
+ * is at most as far (in edit distance) from the new word as their worst suggestion.
+ * All adds must go through this object for the cache to stay correct. The cache is safe
+ * for concurrent use; it is as thread-safe as the wrapped dictionary
+ * (see ConcurrentCompactPrefixTree).
+ */
+public class CachingDictionary implements Dictionary {
+    private static final int ENTRY_OVERHEAD = 96; // estimated bytes per entry besides the chars
+
+    private final Dictionary dictionary;
+    private final CaseFolding folding; // the folding of the dictionary, for cache keys
+    private final int maxEntries;
+    private final long maxBytes;
+
+    // guarded by this, in least recently used order
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch frequencies;
+    private long bytes; // estimated size of the entries
+    private long version; // incremented by every add, so results computed before an add aren't cached
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creates a cache of at most maxEntries results
+     *
+     * @param dictionary the dictionary to compute suggestions with
+     * @param maxEntries the maximum number of cached results
+     */
+    public CachingDictionary(Dictionary dictionary, int maxEntries) {
+        this(dictionary, maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache of at most maxEntries results that take about maxBytes together
+     *
+     * @param dictionary the dictionary to compute suggestions with
+     * @param maxEntries the maximum number of cached results
+     * @param maxBytes   the maximum estimated size of the cached results in bytes
+     */
+    public CachingDictionary(Dictionary dictionary, int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("cache bounds must be positive");
+        }
+        this.dictionary = dictionary;
+        this.folding = CaseFolding.of(dictionary);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        frequencies = new FrequencySketch(maxEntries);
+    }
+
+    /**
+     * Adds a given word to the dictionary and removes the cached suggestions it may change
+     *
+     * @param word the word to add to the dictionary
+     */
+    public void add(String word) {
+        dictionary.add(word);
+        String s = folding.fold(word);
+        synchronized (this) {
+            version++;
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> e = it.next();
+                if (withinDistance(e.getKey().word, s, e.getValue().radius)) {
+                    bytes -= e.getValue().bytes;
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a given word is in the dictionary
+     *
+     * @param word the word to check
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean check(String word) {
+        return dictionary.check(word);
+    }
+
+    /**
+     * Checks if a given prefix is stored in the dictionary
+     *
+     * @param prefix The prefix of a word
+     * @return true if this prefix is a prefix of any word in the dictionary,
+     * and false otherwise
+     */
+    public boolean checkPrefix(String prefix) {
+        return dictionary.checkPrefix(prefix);
+    }
+
+    /**
+     * Returns the suggestions of the wrapped dictionary, from the cache if they were computed before
+     *
+     * @param word           the target word
+     * @param numSuggestions the number of suggestions to return
+     * @return the array with suggestions
+     */
+    public String[] suggest(String word, int numSuggestions) {
+        if (dictionary.check(word)) {
+            return new String[]{word};
+        }
+        Key key = new Key(folding.fold(word), numSuggestions);
+        long before;
+        synchronized (this) {
+            frequencies.increment(key.hashCode());
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.suggestions.clone();
+            }
+            before = version;
+        }
+        misses.increment();
+        String[] suggestions = dictionary.suggest(word, numSuggestions);
+        Entry entry = new Entry(key, suggestions, folding);
+        synchronized (this) {
+            if (version == before && !entries.containsKey(key) && admit(key, entry)) {
+                entries.put(key, entry);
+                bytes += entry.bytes;
+            }
+        }
+        return suggestions.clone();
+    }
+
+    /**
+     * Returns the number of suggest calls answered from the cache
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of suggest calls that had to compute suggestions
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of results removed to make room for others
+     *
+     * @return the number of evictions
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of results removed because an added word could change them
+     *
+     * @return the number of invalidations
+     */
+    public long invalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Returns the number of cached results
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /* Makes room for entry by evicting the least recently used entries, if they are asked for less often.
+     * Returns false, evicting nothing, if entry should not be cached. Called while holding the lock. */
+    private boolean admit(Key key, Entry entry) {
+        if (entry.bytes > maxBytes) {
+            return false;
+        }
+        int frequency = frequencies.frequency(key.hashCode());
+        long size = entries.size();
+        long freed = 0;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); // least recently used first
+        while (size >= maxEntries || bytes - freed + entry.bytes > maxBytes) {
+            Map.Entry<Key, Entry> victim = it.next();
+            if (frequencies.frequency(victim.getKey().hashCode()) >= frequency) {
+                return false;
+            }
+            freed += victim.getValue().bytes;
+            size--;
+        }
+        // the candidate wins against every victim: evict them
+        it = entries.entrySet().iterator();
+        for (long n = entries.size() - size; n > 0; n--) {
+            bytes -= it.next().getValue().bytes;
+            it.remove();
+            evictions.increment();
+        }
+        return true;
+    }
+
+    /* true if the edit distance between a and b is at most max */
+    private static boolean withinDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return false;
+        }
+        if (max >= Math.max(a.length(), b.length())) {
+            return true;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int min = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                row[j] = Math.min(previous[j - 1] + cost, Math.min(previous[j], row[j - 1]) + 1);
+                min = Math.min(min, row[j]);
+            }
+            if (min > max) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[b.length()] <= max;
+    }
+
+    /* A cached word and number of suggestions */
+    private static final class Key {
+        final String word;
+        final int numSuggestions;
+
+        Key(String word, int numSuggestions) {
+            this.word = word;
+            this.numSuggestions = numSuggestions;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return numSuggestions == other.numSuggestions && word.equals(other.word);
+        }
+
+        public int hashCode() {
+            return word.hashCode() * 31 + numSuggestions;
+        }
+    }
+
+    /* Cached suggestions for a key */
+    private static final class Entry {
+        final String[] suggestions;
+        final int radius; // distance of the worst suggestion; an added word this close may change the result
+        final long bytes; // estimated size
+
+        Entry(Key key, String[] suggestions, CaseFolding folding) {
+            this.suggestions = suggestions;
+            int radius = 0;
+            long chars = key.word.length();
+            for (String s : suggestions) {
+                radius = Math.max(radius, distance(key.word, folding.fold(s)));
+                chars += s.length();
+            }
+            // with fewer suggestions than asked for, any new word joins the result
+            this.radius = suggestions.length < key.numSuggestions ? Integer.MAX_VALUE : radius;
+            this.bytes = ENTRY_OVERHEAD + 16L * suggestions.length + 2 * chars;
+        }
+
+        private static int distance(String a, String b) {
+            int max = Math.max(a.length(), b.length());
+            for (int d = 0; d < max; d++) {
+                if (withinDistance(a, b, d)) {
+                    return d;
+                }
+            }
+            return max;
+        }
+    }
+
+    /* Estimates how often each key was used recently: a count-min sketch of 4-bit counters,
+     * all halved once the number of increments reaches ten times the cache size */
+    private static final class FrequencySketch {
+        private final long[] table; // 16 counters per long
+        private final int mask;
+        private final int sampleSize;
+        private int increments;
+
+        FrequencySketch(int maxEntries) {
+            int counters = Integer.highestOneBit(Math.max(64, Math.min(maxEntries, 1 << 24)) * 4 - 1) << 1;
+            table = new long[counters / 16];
+            mask = counters - 1;
+            sampleSize = maxEntries <= Integer.MAX_VALUE / 10 ? 10 * maxEntries : Integer.MAX_VALUE;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                long shift = (index & 15) * 4L;
+                long counter = (table[index >>> 4] >>> shift) & 15;
+                if (counter < 15) {
+                    table[index >>> 4] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++increments == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+                }
+                increments /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                min = Math.min(min, (int) ((table[index >>> 4] >>> ((index & 15) * 4)) & 15));
+            }
+            return min;
+        }
+
+        /* Counter index of the hash in row i */
+        private int index(int hash, int i) {
+            int h = (hash + i) * 0x9E3779B9;
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            h ^= h >>> 13;
+            return h & mask;
+        }
+    }
+}
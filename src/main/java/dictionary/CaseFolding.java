@@ -0,0 +1,194 @@
+package dictionary;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How a dictionary folds the case of its words: every word is folded when it is added and
+ * when it is looked up, so "Cat", "CAT" and "cat" are the same word unless the folding is NONE.
+ *
+ * Folding works one char at a time and never changes the length of a word, so a word can
+ * be checked in place, char by char, without creating a folded copy. A char is folded to the
+ * lowercase of the locale when that is a single char, and to Character.toLowerCase otherwise
+ * (for example "İ" becomes "i" instead of the two chars "i̇"). Supplementary characters
+ * (surrogate pairs) are left as they are.
+ *
+ * The only languages with their own rules are Turkish and Azerbaijani (dotted and dotless i),
+ * for every other locale of(locale) returns LOWER.
+ */
+public final class CaseFolding {
+
+    /**
+     * Case-sensitive: words are stored and looked up exactly as given
+     */
+    public static final CaseFolding NONE = new CaseFolding(null, "");
+
+    /**
+     * Folds to lowercase with the rules of Locale.ROOT, whatever the default locale is.
+     * Used by the dictionaries unless they are given a folding.
+     */
+    public static final CaseFolding LOWER = new CaseFolding(Locale.ROOT, "");
+
+    private static final ConcurrentHashMap<String, CaseFolding> BY_LANGUAGE = new ConcurrentHashMap<>();
+
+    private final Locale locale; // null for NONE
+    private final String language; // the language with its own rules, "" for NONE and LOWER
+    private final char[] ascii = new char[128]; // folded char for every ASCII char
+    private final char[] from; // sorted non-ASCII chars the locale folds differently from Character.toLowerCase
+    private final char[] to; // what from[i] folds to
+
+    private CaseFolding(Locale locale, String language) {
+        this.locale = locale;
+        this.language = language;
+        for (char c = 0; c < 128; c++) {
+            ascii[c] = locale == null ? c : lower(c, locale);
+        }
+        StringBuilder differing = new StringBuilder();
+        StringBuilder folded = new StringBuilder();
+        if (locale != null && !language.isEmpty()) {
+            for (char c = 128; c < Character.MIN_SURROGATE; c++) {
+                char lower = lower(c, locale);
+                if (lower != Character.toLowerCase(c)) {
+                    differing.append(c);
+                    folded.append(lower);
+                }
+            }
+        }
+        from = differing.toString().toCharArray();
+        to = folded.toString().toCharArray();
+    }
+
+    /**
+     * Returns the folding with the lowercase rules of a locale
+     *
+     * @param locale the locale
+     * @return LOWER, or a folding with the rules of the locale's language if they differ
+     */
+    public static CaseFolding of(Locale locale) {
+        String language = locale.getLanguage();
+        return BY_LANGUAGE.computeIfAbsent(language, l -> {
+            CaseFolding folding = new CaseFolding(Locale.of(l), l);
+            return folding.differsFrom(LOWER) ? folding : LOWER;
+        });
+    }
+
+    /**
+     * Folds one char
+     *
+     * @param c the char
+     * @return the folded char
+     */
+    public char fold(char c) {
+        if (c < 128) {
+            return ascii[c];
+        }
+        if (locale == null) {
+            return c;
+        }
+        if (from.length > 0) {
+            int i = Arrays.binarySearch(from, c);
+            if (i >= 0) {
+                return to[i];
+            }
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * Folds a word
+     *
+     * @param word the word
+     * @return the folded word, of the same length; word itself if folding doesn't change it
+     */
+    public String fold(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (fold(c) != c) {
+                char[] chars = word.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    chars[j] = fold(chars[j]);
+                }
+                return new String(chars);
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Returns the locale whose rules are used
+     *
+     * @return the locale, Locale.ROOT for LOWER and null for NONE
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public String toString() {
+        return locale == null ? "NONE" : language.isEmpty() ? "LOWER" : "LOWER(" + language + ")";
+    }
+
+    /**
+     * Returns the folding used by a dictionary, for code that works with any Dictionary
+     *
+     * @param dictionary the dictionary
+     * @return its folding, LOWER for dictionaries that don't say
+     */
+    static CaseFolding of(Dictionary dictionary) {
+        if (dictionary instanceof CompactPrefixTree) {
+            return ((CompactPrefixTree) dictionary).getFolding();
+        }
+        if (dictionary instanceof PackedTrie) {
+            return ((PackedTrie) dictionary).getFolding();
+        }
+        if (dictionary instanceof ConcurrentCompactPrefixTree) {
+            return ((ConcurrentCompactPrefixTree) dictionary).getFolding();
+        }
+        return LOWER;
+    }
+
+    /* The number stored in a dictionary file for this folding: 0 for LOWER, 1 for NONE,
+     * otherwise the (at most 4) ASCII letters of the language */
+    int code() {
+        if (locale == null) {
+            return 1;
+        }
+        int code = 0;
+        for (int i = 0; i < language.length() && i < 4; i++) {
+            code |= language.charAt(i) << (8 * i);
+        }
+        return code;
+    }
+
+    /* The folding stored in a dictionary file as code(), or null if the code is not valid */
+    static CaseFolding fromCode(int code) {
+        if (code == 0) {
+            return LOWER;
+        }
+        if (code == 1) {
+            return NONE;
+        }
+        StringBuilder language = new StringBuilder();
+        for (int i = 0; i < 4 && (code >>> (8 * i) & 0xFF) != 0; i++) {
+            char c = (char) (code >>> (8 * i) & 0xFF);
+            if (c < 'a' || c > 'z') {
+                return null;
+            }
+            language.append(c);
+        }
+        CaseFolding folding = of(Locale.of(language.toString()));
+        return folding.code() == code ? folding : null;
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /* The lowercase of c in the locale if it is one char, else Character.toLowerCase(c) */
+    private static char lower(char c, Locale locale) {
+        String lower = String.valueOf(c).toLowerCase(locale);
+        return lower.length() == 1 ? lower.charAt(0) : Character.toLowerCase(c);
+    }
+
+    private boolean differsFrom(CaseFolding other) {
+        return from.length > 0 || !Arrays.equals(ascii, other.ascii);
+    }
+}
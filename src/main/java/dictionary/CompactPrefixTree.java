@@ -1,7 +1,19 @@
 package dictionary;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * CompactPrefixTree class, implements Dictionary ADT and
@@ -9,14 +21,30 @@ import java.util.ArrayList;
  * Fill in code and feel free to add additional methods as needed.
  * S19
  */
-public class CompactPrefixTree implements Dictionary {
+public class CompactPrefixTree implements Dictionary, Iterable<String> {
+
+    private static final int PRINT_BUFFER = 8192; // chars printTree collects before writing them
 
     private Node root; // the root of the tree
+    private final CaseFolding folding; // applied to every word added or looked up
+    private TreeMetrics metrics; // null unless enableMetrics was called
+    private int addVisited; // number of nodes visited by the last add, for metrics
 
     /**
      * Default constructor
      */
     public CompactPrefixTree() {
+        this(CaseFolding.LOWER);
+    }
+
+    /**
+     * Creates an empty dictionary that folds the case of words with the given folding,
+     * for example CaseFolding.NONE for a case-sensitive dictionary of product names
+     *
+     * @param folding the case folding, see CaseFolding
+     */
+    public CompactPrefixTree(CaseFolding folding) {
+        this.folding = Objects.requireNonNull(folding);
     }
 
     /**
@@ -26,20 +54,105 @@ public class CompactPrefixTree implements Dictionary {
      * @param filename the name of the file with words
      */
     public CompactPrefixTree(String filename) {
+        this(filename, CaseFolding.LOWER);
+    }
+
+    /**
+     * Creates a dictionary using words from the given file (read as UTF-8), folding their case
+     * with the given folding
+     *
+     * @param filename the name of the file with words
+     * @param folding  the case folding, see CaseFolding
+     */
+    public CompactPrefixTree(String filename, CaseFolding folding) {
+        this.folding = Objects.requireNonNull(folding);
+        CompactPrefixTreeBuilder builder = new CompactPrefixTreeBuilder(folding);
         try {
-            FileReader fr = new FileReader(filename);
+            FileReader fr = new FileReader(filename, StandardCharsets.UTF_8);
             BufferedReader br = new BufferedReader(fr);
             String line = br.readLine();
             while (line != null) {
                 String[] lineWords = line.split(" ");
                 for (int i = 0; i < lineWords.length; i++) {
-                    add(lineWords[i]);
+                    builder.add(lineWords[i]);
                 }
                 line = br.readLine();
             }
         } catch (IOException e) {
             System.out.println("IO Exception");
         }
+        root = builder.buildRoot();
+    }
+
+    /**
+     * Creates a dictionary ("compact prefix tree") using words from the given file,
+     * building the subtrees for different first letters in parallel.
+     * Gives the same tree as CompactPrefixTree(filename).
+     *
+     * @param filename    the name of the file with words
+     * @param parallelism the number of threads to build with
+     */
+    public CompactPrefixTree(String filename, int parallelism) {
+        folding = CaseFolding.LOWER;
+        ArrayList<String> words = new ArrayList<>();
+        try {
+            FileReader fr = new FileReader(filename, StandardCharsets.UTF_8);
+            BufferedReader br = new BufferedReader(fr);
+            String line = br.readLine();
+            while (line != null) {
+                words.addAll(Arrays.asList(line.split(" ")));
+                line = br.readLine();
+            }
+        } catch (IOException e) {
+            System.out.println("IO Exception");
+        }
+        root = CompactPrefixTreeBuilder.buildParallel(words, parallelism).root;
+    }
+
+    /**
+     * Creates a dictionary with the given tree; used by the builders in this package
+     *
+     * @param root    the root of the tree, or null for an empty tree
+     * @param folding the case folding the words of the tree were added with
+     */
+    CompactPrefixTree(Node root, CaseFolding folding) {
+        this.root = root;
+        this.folding = folding;
+    }
+
+    /**
+     * Creates a dictionary of weighted words from a file with one "word<TAB>count" entry per line,
+     * for complete. A line without a tab adds its word with weight 0; blank lines are skipped.
+     *
+     * @param path the file to read
+     * @return the dictionary
+     * @throws IOException if the file can't be read or a count is not a non-negative number
+     */
+    public static CompactPrefixTree fromWeightedFile(Path path) throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        try (BufferedReader br = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                int tab = line.lastIndexOf('\t');
+                String word = (tab < 0 ? line : line.substring(0, tab)).trim();
+                if (word.isEmpty()) {
+                    continue;
+                }
+                long weight;
+                try {
+                    weight = tab < 0 ? 0 : Long.parseLong(line.substring(tab + 1).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException(path + ":" + lineNumber + ": bad count in \"" + line + "\"");
+                }
+                if (weight < 0) {
+                    throw new IOException(path + ":" + lineNumber + ": negative count in \"" + line + "\"");
+                }
+                tree.add(word, weight);
+            }
+        }
+        return tree;
     }
 
     /**
@@ -48,7 +161,50 @@ public class CompactPrefixTree implements Dictionary {
      * @param word the word to add to the dictionary
      */
     public void add(String word) {
-        root = add(word.toLowerCase(), root); // Calling private add method
+        if (word.isEmpty()) {
+            return;
+        }
+        if (metrics == null) {
+            root = add(folding.fold(word), root); // Calling private add method
+            return;
+        }
+        long start = System.nanoTime();
+        root = add(folding.fold(word), root);
+        metrics.add.record(System.nanoTime() - start, addVisited);
+    }
+
+    /**
+     * Adds a word with a weight (for example how often it is used), or changes the weight
+     * of a word already in the dictionary. Words added with add(word) have weight 0.
+     *
+     * @param word   the word to add to the dictionary
+     * @param weight the weight of the word, used by complete
+     */
+    public void add(String word, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight: " + weight);
+        }
+        if (word.isEmpty()) {
+            return;
+        }
+        add(word);
+        setWeight(folding.fold(word), weight);
+    }
+
+    /**
+     * Removes a word from the dictionary. Nodes that no longer lead to a word are deleted, and
+     * a node left with a single child and no word of its own is merged with that child, so the
+     * tree is the same as if the word had never been added.
+     *
+     * @param word the word to remove
+     * @return true if the word was in the dictionary
+     */
+    public boolean remove(String word) {
+        if (word.isEmpty() || !check(word)) {
+            return false;
+        }
+        root = remove(root, folding.fold(word), false);
+        return true;
     }
 
     /**
@@ -58,7 +214,7 @@ public class CompactPrefixTree implements Dictionary {
      * @return true if the word is in the dictionary, false otherwise
      */
     public boolean check(String word) {
-        return check(word.toLowerCase(), root); // Calling private check method
+        return check(word, 0, word.length());
     }
 
     /**
@@ -69,7 +225,85 @@ public class CompactPrefixTree implements Dictionary {
      * and false otherwise
      */
     public boolean checkPrefix(String prefix) {
-        return checkPrefix(prefix.toLowerCase(), root); // Calling private checkPrefix method
+        return checkPrefix(prefix, 0, prefix.length());
+    }
+
+    /**
+     * Checks if the characters word[from..to) form a word in the dictionary.
+     * Gives the same answer as check(word.substring(from, to)), but compares the
+     * characters with the node labels in place (folding the case one char at a time),
+     * so it doesn't create any objects.
+     *
+     * @param word the characters to check
+     * @param from index of the first char of the word
+     * @param to   index after the last char of the word
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean check(CharSequence word, int from, int to) {
+        Objects.checkFromToIndex(from, to, word.length());
+        if (metrics == null) {
+            return find(word, from, to, false) > 0;
+        }
+        long start = System.nanoTime();
+        int visited = find(word, from, to, false);
+        metrics.check.record(System.nanoTime() - start, Math.abs(visited));
+        return visited > 0;
+    }
+
+    /**
+     * Checks if the characters prefix[from..to) are a prefix of any word in the dictionary.
+     * Gives the same answer as checkPrefix(prefix.substring(from, to)) without creating any objects.
+     *
+     * @param prefix the characters to check
+     * @param from   index of the first char of the prefix
+     * @param to     index after the last char of the prefix
+     * @return true if this prefix is a prefix of any word in the dictionary,
+     * and false otherwise
+     */
+    public boolean checkPrefix(CharSequence prefix, int from, int to) {
+        Objects.checkFromToIndex(from, to, prefix.length());
+        if (metrics == null) {
+            return find(prefix, from, to, true) > 0;
+        }
+        long start = System.nanoTime();
+        int visited = find(prefix, from, to, true);
+        metrics.checkPrefix.record(System.nanoTime() - start, Math.abs(visited));
+        return visited > 0;
+    }
+
+    /**
+     * Checks a batch of words at once. The words are sorted and looked up in a single
+     * walk over the tree, so words with a common prefix share the work for that prefix.
+     *
+     * @param words the words to check
+     * @return an array with result[i] true if words.get(i) is in the dictionary
+     */
+    public boolean[] checkAll(List<String> words) {
+        boolean[] out = new boolean[words.size()];
+        checkAll(words.toArray(new String[0]), out);
+        return out;
+    }
+
+    /**
+     * Checks a batch of words at once, see checkAll(List)
+     *
+     * @param words the words to check
+     * @param out   receives the results: out[i] is true if words[i] is in the dictionary
+     */
+    public void checkAll(String[] words, boolean[] out) {
+        BatchLookup.checkAll(NODES, root, folding, words, out);
+    }
+
+    /**
+     * Returns suggestions for a batch of words; words that are in the dictionary are
+     * found in one walk over the tree and suggestions for a repeated word are computed once.
+     *
+     * @param words          the target words
+     * @param numSuggestions the number of suggestions for each word
+     * @return an array with result[i] the same as suggest(words.get(i), numSuggestions)
+     */
+    public String[][] suggestAll(List<String> words, int numSuggestions) {
+        return BatchLookup.suggestAll(NODES, root, folding, words.toArray(new String[0]), numSuggestions, false);
     }
 
     /**
@@ -80,9 +314,13 @@ public class CompactPrefixTree implements Dictionary {
      * then there are children of the node at a higher indentation level.
      */
     public String toString() {
-        String s = toString(root, 0);
-
-        return s;
+        StringBuilder sb = new StringBuilder();
+        try {
+            printTree(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder doesn't throw
+        }
+        return sb.toString();
     }
 
     /**
@@ -92,19 +330,217 @@ public class CompactPrefixTree implements Dictionary {
      * @param filename the name of the file where to output the tree
      */
     public void printTree(String filename) {
-        try {
-            File file = new File(filename);
-            FileWriter fw = new FileWriter(file);
-            BufferedWriter bw = new BufferedWriter(fw);
-
-            bw.write(toString());
-            bw.flush();
-
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(new File(filename)))) {
+            printTree(bw);
         } catch (IOException e) {
             System.out.println("IO exception.");
         }
     }
 
+    /**
+     * Writes the same representation as toString() to out, one node at a time,
+     * without building the whole string in memory.
+     *
+     * @param out where to write the tree
+     * @throws IOException if out throws it
+     */
+    public void printTree(Appendable out) throws IOException {
+        if (root == null) {
+            return;
+        }
+        // lines are collected in a small buffer and written in chunks, a StringBuilder is written to directly
+        StringBuilder buffer = out instanceof StringBuilder ? (StringBuilder) out : new StringBuilder(PRINT_BUFFER + 64);
+        printTree(root, 0, buffer, out);
+        if (buffer != out) {
+            out.append(buffer);
+        }
+    }
+
+    /**
+     * Returns all words in the dictionary, in alphabetical order. The words are enumerated
+     * lazily while the stream is consumed; a parallel stream splits the work by subtrees.
+     * The tree must not be changed while the stream is in use.
+     *
+     * @return the stream of words
+     */
+    public Stream<String> words() {
+        return words("");
+    }
+
+    /**
+     * Returns the words in the dictionary that start with the given prefix, in alphabetical order
+     * (lazily, see words()).
+     *
+     * @param prefix the prefix of the words
+     * @return the stream of words
+     */
+    public Stream<String> words(String prefix) {
+        return StreamSupport.stream(TrieSpliterator.words(NODES, root, folding.fold(prefix), countPrefix(prefix)), false);
+    }
+
+    /**
+     * Returns an iterator over all words in the dictionary, in alphabetical order
+     *
+     * @return the iterator
+     */
+    public Iterator<String> iterator() {
+        return Spliterators.iterator(TrieSpliterator.words(NODES, root, "", numWords()));
+    }
+
+    /**
+     * Returns the number of words in the dictionary
+     *
+     * @return the number of words
+     */
+    public int numWords() {
+        return root == null ? 0 : root.numWords;
+    }
+
+    /**
+     * Returns the number of words that start with the given prefix (for example to size a
+     * dropdown of completions). Every node counts the words in its subtree, so this only
+     * walks down the path of the prefix.
+     *
+     * @param prefix the prefix of the words
+     * @return the number of words that start with prefix, numWords() for ""
+     */
+    public int countPrefix(String prefix) {
+        Node node = NODES.subtree(root, folding.fold(prefix), new int[1]);
+        return node == null ? 0 : node.numWords;
+    }
+
+    /**
+     * Returns the number of words in the dictionary that come before the given word in
+     * alphabetical order. The word doesn't have to be in the dictionary; if it is, rank(word)
+     * is its index in words() and select(rank(word)) returns it. Walks down the path of the
+     * word, adding up the counts of the subtrees to its left.
+     *
+     * @param word the word
+     * @return the number of smaller words, between 0 and numWords()
+     */
+    public int rank(String word) {
+        String s = folding.fold(word);
+        Node node = root;
+        int rank = 0;
+        int index = 0; // chars of s matched by the nodes down to node
+        while (node != null && index < s.length()) {
+            if (node.isWord) { // a prefix of s
+                rank++;
+            }
+            char c = s.charAt(index);
+            Node next = null;
+            for (int i = 0; i < node.numSlots(); i++) {
+                Node child = node.getSlot(i);
+                if (child != null) {
+                    if (child.prefix.charAt(0) >= c) {
+                        next = child.prefix.charAt(0) == c ? child : null;
+                        break;
+                    }
+                    rank += child.numWords;
+                }
+            }
+            if (next == null) {
+                return rank;
+            }
+            int matched = 1;
+            while (matched < next.prefix.length() && index + matched < s.length()
+                    && next.prefix.charAt(matched) == s.charAt(index + matched)) {
+                matched++;
+            }
+            if (matched < next.prefix.length()) { // s leaves the path inside the label
+                boolean after = index + matched < s.length() && s.charAt(index + matched) > next.prefix.charAt(matched);
+                return after ? rank + next.numWords : rank;
+            }
+            index += matched;
+            node = next;
+        }
+        return rank; // the words below node are s or longer words that start with s
+    }
+
+    /**
+     * Returns the word at the given index in alphabetical order, the inverse of rank.
+     * Walks down one path, skipping subtrees by their word counts.
+     *
+     * @param index the index of the word, from 0 to numWords() - 1
+     * @return the word, with its case folded
+     * @throws IndexOutOfBoundsException if there is no word with that index
+     */
+    public String select(int index) {
+        Objects.checkIndex(index, numWords());
+        return select(index, null, null);
+    }
+
+    /**
+     * Returns the words with indices from (inclusive) to to (exclusive) in alphabetical order,
+     * for example range(500, 550) for a page of 50 words. The first word is found as in select,
+     * the others are enumerated lazily from there, so the cost depends on the length of the
+     * words and on to - from, not on the size of the dictionary.
+     * The tree must not be changed while the stream is in use.
+     *
+     * @param from the index of the first word
+     * @param to   the index after the last word
+     * @return the stream of words
+     * @throws IndexOutOfBoundsException if from and to are not a range of indices
+     */
+    public Stream<String> range(int from, int to) {
+        Objects.checkFromToIndex(from, to, numWords());
+        if (from == to) {
+            return Stream.empty();
+        }
+        ArrayList<Node> subtrees = new ArrayList<>();
+        ArrayList<String> paths = new ArrayList<>();
+        String first = select(from, subtrees, paths);
+        TrieSpliterator<Node> words = TrieSpliterator.of(NODES, first, subtrees.toArray(new Node[0]),
+                paths.toArray(new String[0]), numWords() - from);
+        return StreamSupport.stream(words, false).limit(to - from);
+    }
+
+    /**
+     * Returns the words w of the dictionary with from <= w < to in alphabetical order,
+     * same as range(rank(from), rank(to)).
+     *
+     * @param from the smallest word of the range, doesn't have to be in the dictionary
+     * @param to   the word after the range, doesn't have to be in the dictionary
+     * @return the stream of words, empty if to is not after from
+     */
+    public Stream<String> range(String from, String to) {
+        int first = rank(from);
+        return range(first, Math.max(first, rank(to)));
+    }
+
+    /**
+     * Returns the k words with the largest weights among the words that start with prefix,
+     * largest first; words with the same weight are in alphabetical order.
+     * Every node knows the largest weight in its subtree, so the search takes the most
+     * promising subtree from a priority queue each time and never opens the subtrees
+     * that can't make the top k. The work depends on k and the length of the words,
+     * not on how many words start with the prefix.
+     *
+     * @param prefix the prefix of the words
+     * @param k      the number of words to return
+     * @return up to k words, fewer if fewer words start with prefix
+     */
+    public String[] complete(String prefix, int k) {
+        String p = folding.fold(prefix);
+        int[] above = new int[1];
+        Node node = NODES.subtree(root, p, above);
+        if (node == null) {
+            return new String[0];
+        }
+        return complete(node, p.substring(0, above[0]), k);
+    }
+
+    /**
+     * Returns a cursor for looking up a word one typed char at a time, see PrefixCursor.
+     * Its completions are the same as those of complete. The tree must not be changed
+     * while the cursor is in use.
+     *
+     * @return a cursor at the empty prefix
+     */
+    public PrefixCursor cursor() {
+        return PrefixCursor.of(NODES, root, folding, CompactPrefixTree::complete);
+    }
+
     /**
      * Return an array of the entries in the dictionary that are as close as possible to
      * the parameter word.  If the word passed in is in the dictionary, then
@@ -113,6 +549,8 @@ public class CompactPrefixTree implements Dictionary {
      * that are in the dictionary, that are as close as possible to the target word.
      * Implementation details are up to you, but you are required to make it efficient
      * and make good use ot the compact prefix tree.
+     * The suggestions are the words with the smallest edit (Levenshtein) distance
+     * to the target word, closest first and then in alphabetical order.
      *
      * @param word           The word to check
      * @param numSuggestions The length of the array to return.  Note that if the word is
@@ -122,259 +560,903 @@ public class CompactPrefixTree implements Dictionary {
      */
 
     public String[] suggest(String word, int numSuggestions) {
-        if (check(word)) {
-            return new String[]{word};
+        return suggest(word, numSuggestions, false);
+    }
+
+    /**
+     * Same as suggest(word, numSuggestions), optionally counting a swap of two
+     * adjacent letters ("teh" for "the") as a single edit.
+     *
+     * @param word           The word to check
+     * @param numSuggestions The length of the array to return
+     * @param transpositions true to count swapped adjacent letters as one edit
+     *                       (Damerau-Levenshtein distance)
+     * @return An array of the closest entries in the dictionary to the target word
+     */
+    public String[] suggest(String word, int numSuggestions, boolean transpositions) {
+        if (metrics == null) {
+            if (find(word, 0, word.length(), false) > 0) {
+                return new String[]{word};
+            }
+            return Suggester.suggest(NODES, root, folding.fold(word), numSuggestions, transpositions, null);
+        }
+        long start = System.nanoTime();
+        int found = find(word, 0, word.length(), false);
+        long[] visited = {Math.abs(found)};
+        String[] suggestions = found > 0 ? new String[]{word}
+                : Suggester.suggest(NODES, root, folding.fold(word), numSuggestions, transpositions, visited);
+        metrics.suggest.record(System.nanoTime() - start, visited[0]);
+        return suggestions;
+    }
+
+    /**
+     * Returns the words that match a wildcard pattern, in alphabetical order: ? matches any
+     * one char, * any run of chars, [abc] and [a-z] one of the chars, [^abc] any other char,
+     * for example "c?t", "ca*s" or "[aeiou]??". See PatternMatcher. The tree is searched
+     * along with the pattern, so subtrees that can't match are skipped.
+     *
+     * @param pattern the pattern
+     * @param limit   the largest number of words to return
+     * @return up to limit words
+     * @throws IllegalArgumentException if the pattern is not valid
+     */
+    public String[] match(String pattern, int limit) {
+        return PatternMatcher.match(NODES, root, pattern, folding, limit, 1);
+    }
+
+    /**
+     * Same as match(pattern, limit), searching the subtrees of the root's children in parallel.
+     * Every subtree is searched for up to limit words, so this pays off for patterns with many
+     * matches or a large limit.
+     *
+     * @param pattern     the pattern
+     * @param limit       the largest number of words to return
+     * @param parallelism the number of threads to search with
+     * @return up to limit words
+     * @throws IllegalArgumentException if the pattern is not valid
+     */
+    public String[] match(String pattern, int limit, int parallelism) {
+        return PatternMatcher.match(NODES, root, pattern, folding, limit, parallelism);
+    }
+
+    /**
+     * Returns a new dictionary with the words that are in this dictionary or in other.
+     * Both trees are walked together once, see SetOperations; neither is changed.
+     * A word in both keeps the larger of its two weights.
+     *
+     * @param other a dictionary with the same case folding
+     * @return the union, a dictionary with the same folding
+     */
+    public CompactPrefixTree union(CompactPrefixTree other) {
+        return union(other, 1);
+    }
+
+    /**
+     * Same as union(other), combining the subtrees of the root's children in parallel
+     *
+     * @param other       a dictionary with the same case folding
+     * @param parallelism the number of threads to combine with
+     * @return the union, a dictionary with the same folding
+     */
+    public CompactPrefixTree union(CompactPrefixTree other, int parallelism) {
+        return combine(other, SetOperations.UNION, parallelism);
+    }
+
+    /**
+     * Returns a new dictionary with the words that are in both this dictionary and other.
+     * Neither dictionary is changed.
+     *
+     * @param other a dictionary with the same case folding
+     * @return the intersection, a dictionary with the same folding
+     */
+    public CompactPrefixTree intersect(CompactPrefixTree other) {
+        return intersect(other, 1);
+    }
+
+    /**
+     * Same as intersect(other), combining the subtrees of the root's children in parallel
+     *
+     * @param other       a dictionary with the same case folding
+     * @param parallelism the number of threads to combine with
+     * @return the intersection, a dictionary with the same folding
+     */
+    public CompactPrefixTree intersect(CompactPrefixTree other, int parallelism) {
+        return combine(other, SetOperations.INTERSECT, parallelism);
+    }
+
+    /**
+     * Returns a new dictionary with the words of this dictionary that are not in other
+     * (for example a word list minus a blocklist). Neither dictionary is changed.
+     *
+     * @param other a dictionary with the same case folding
+     * @return the difference, a dictionary with the same folding
+     */
+    public CompactPrefixTree subtract(CompactPrefixTree other) {
+        return subtract(other, 1);
+    }
+
+    /**
+     * Same as subtract(other), combining the subtrees of the root's children in parallel
+     *
+     * @param other       a dictionary with the same case folding
+     * @param parallelism the number of threads to combine with
+     * @return the difference, a dictionary with the same folding
+     */
+    public CompactPrefixTree subtract(CompactPrefixTree other, int parallelism) {
+        return combine(other, SetOperations.SUBTRACT, parallelism);
+    }
+
+    /**
+     * Returns an immutable snapshot of this dictionary for read-only use.
+     * The snapshot stores all labels in one char array and the tree structure
+     * in flat int arrays, and gives the same answers as this tree for
+     * check, checkPrefix and suggest. Later changes to this tree are not
+     * reflected in the snapshot.
+     *
+     * @return the frozen dictionary
+     */
+    public FrozenCompactPrefixTree freeze() {
+        ArrayList<Node> order = new ArrayList<>(); // nodes in breadth-first order
+        if (root != null) {
+            order.add(root);
+        }
+        int labelLength = 0;
+        for (int i = 0; i < order.size(); i++) {
+            Node node = order.get(i);
+            labelLength += node.prefix.length();
+            for (int j = 0; j < node.numSlots(); j++) {
+                if (node.getSlot(j) != null) {
+                    order.add(node.getSlot(j));
+                }
+            }
         }
 
-        ArrayList<String> suggestions = suggest(root, word, numSuggestions);
+        int numNodes = order.size();
+        char[] labels = new char[labelLength];
+        int[] labelStart = new int[numNodes + 1];
+        int[] firstChild = new int[numNodes + 1];
+        boolean[] isWord = new boolean[numNodes];
+        int nextChild = 1; // children of a node follow the children of the nodes before it
+        for (int i = 0; i < numNodes; i++) {
+            Node node = order.get(i);
+            node.prefix.getChars(0, node.prefix.length(), labels, labelStart[i]);
+            labelStart[i + 1] = labelStart[i] + node.prefix.length();
+            firstChild[i] = nextChild;
+            nextChild += node.numChildren;
+            isWord[i] = node.isWord;
+        }
+        firstChild[numNodes] = nextChild;
+        return new FrozenCompactPrefixTree(labels, labelStart, firstChild, isWord, folding);
+    }
 
-        while (suggestions.size() < numSuggestions && word.length() > 0) {
-            numSuggestions -= suggestions.size();
-            word = word.substring(0, word.length() - 1);
-            suggestions.addAll(suggest(root, word, numSuggestions));
+    /**
+     * Returns a read-only copy of this dictionary that shares common word endings
+     * ("-ing", "-ness", ...) as well as prefixes, see MinimizedCompactPrefixTree.
+     * It gives the same answers as this tree for check, checkPrefix and suggest.
+     * Later changes to this tree are not reflected in the copy.
+     *
+     * @return the minimized dictionary
+     */
+    public MinimizedCompactPrefixTree minimize() {
+        return MinimizedCompactPrefixTree.of(root, folding);
+    }
+
+    /**
+     * Returns a read-only copy of this dictionary stored outside the Java heap,
+     * see OffHeapCompactPrefixTree. It gives the same answers as freeze() and
+     * must be closed to free its memory. Later changes to this tree are not
+     * reflected in the copy.
+     *
+     * @return the off-heap dictionary
+     */
+    public OffHeapCompactPrefixTree toOffHeap() {
+        return OffHeapCompactPrefixTree.of(freeze());
+    }
+
+    /**
+     * Writes the dictionary to a binary file that MappedCompactPrefixTree.load
+     * can map back into memory, so it doesn't have to be rebuilt from a word list.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        freeze().save(path);
+    }
+
+    /**
+     * Starts recording metrics for add, check, checkPrefix and suggest: latency and the
+     * number of nodes visited per call. Recording costs two System.nanoTime calls and a
+     * few atomic increments per call; without metrics, calls don't record anything.
+     * Calling it again returns the same metrics.
+     *
+     * @return the metrics of this tree, which also give structural statistics and can be registered with JMX
+     */
+    public TreeMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new TreeMetrics(this);
         }
-        return suggestions.toArray(new String[]{}); // don't forget to change it
+        return metrics;
+    }
+
+    /**
+     * Computes structural statistics of the tree: node and word counts, depths, fan-out and size.
+     * Walks the whole tree, does not need metrics to be enabled.
+     *
+     * @return the statistics
+     */
+    public MetricsSnapshot.TreeStats treeStats() {
+        return MetricsSnapshot.TreeStats.of(root);
+    }
+
+    /**
+     * Returns how the dictionary folds the case of words
+     *
+     * @return the case folding
+     */
+    public CaseFolding getFolding() {
+        return folding;
+    }
+
+    /* The root of the tree, null for an empty tree; used by the other trees in this package */
+    Node root() {
+        return root;
     }
 
     // ---------- Private helper methods ---------------
 
+    /* union, intersect and subtract: the words of both trees must have been folded the same way */
+    private CompactPrefixTree combine(CompactPrefixTree other, int operation, int parallelism) {
+        if (!folding.equals(other.folding)) {
+            throw new IllegalArgumentException("Different case foldings: " + folding + " and " + other.folding);
+        }
+        return new CompactPrefixTree(SetOperations.combine(root, other.root, operation, parallelism), folding);
+    }
+
+    /**
+     * Walks down to the word with the given index. If subtrees is not null, also collects the
+     * subtrees with the words after it, in alphabetical order: the children of its node, then
+     * the siblings to the right of each node on its path, from the deepest one up.
+     *
+     * @param index    the index of the word, from 0 to numWords() - 1
+     * @param subtrees receives the subtrees after the word, or null
+     * @param paths    receives the chars on the path from the root to each subtree, not including its label
+     * @return the word
+     */
+    private String select(int index, List<Node> subtrees, List<String> paths) {
+        ArrayList<Node> nodes = new ArrayList<>(); // nodes on the path above the word's node
+        ArrayList<Integer> nextSlots = new ArrayList<>(); // slot after the one the walk went down to
+        ArrayList<String> pathsBelow = new ArrayList<>(); // path including the node's label
+        StringBuilder path = new StringBuilder();
+        Node node = root;
+        int remaining = index; // words to skip in the subtree of node
+        while (true) {
+            path.append(node.prefix);
+            if (node.isWord) {
+                if (remaining == 0) {
+                    break;
+                }
+                remaining--;
+            }
+            int slot = 0;
+            Node child = node.getSlot(0);
+            while (child == null || remaining >= child.numWords) {
+                if (child != null) {
+                    remaining -= child.numWords;
+                }
+                child = node.getSlot(++slot);
+            }
+            nodes.add(node);
+            nextSlots.add(slot + 1);
+            pathsBelow.add(path.toString());
+            node = child;
+        }
+        String word = path.toString();
+        if (subtrees != null) {
+            addSlots(node, 0, word, subtrees, paths);
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                addSlots(nodes.get(i), nextSlots.get(i), pathsBelow.get(i), subtrees, paths);
+            }
+        }
+        return word;
+    }
+
+    /* Adds the children of node in slots from..numSlots() to subtrees, with the path above them */
+    private static void addSlots(Node node, int from, String path, List<Node> subtrees, List<String> paths) {
+        for (int i = from; i < node.numSlots(); i++) {
+            if (node.getSlot(i) != null) {
+                subtrees.add(node.getSlot(i));
+                paths.add(path);
+            }
+        }
+    }
+
     /**
-     * A private add method that adds a given string to the tree
+     * A private add method that adds a given string to the tree.
+     * Walks down from the given node, splitting the label of the first node
+     * whose prefix only partially matches s.
      *
      * @param s    the string to add
      * @param node the root of a tree where we want to add a new string
      * @return a reference to the root of the tree that contains s
      */
     private Node add(String s, Node node) {
-        Node newNode = new Node();
-
-        int searchIndex = Character.toLowerCase(s.charAt(0)) - 97; //97 is the ASCII value for lowercase 'a'
         if (node == null) {
-            node = new Node();
-            node.prefix = "";
-            newNode.prefix = s;
-            node.children[searchIndex] = newNode;
-            newNode.isWord = true;
-        } else {
-            Node searchNode = node.children[searchIndex];
-
-            if (searchNode == null) {
-                newNode.prefix = s;
-                node.children[searchIndex] = newNode;
+            node = new Node("");
+        }
+        Node parent = node;
+        int index = 0; // index of the first char of s not matched yet
+        addVisited = 1;
+        parent.numWords++; // every node on the path counts s, undone below if s was already there
+        while (index < s.length()) {
+            Node searchNode = parent.getChild(s.charAt(index));
+            addVisited++;
+            if (searchNode == null) { // no child starts with this letter, the rest of s becomes a leaf
+                Node newNode = new Node(s.substring(index));
                 newNode.isWord = true;
+                newNode.numWords = 1;
+                parent.putChild(newNode);
+                return node;
+            }
+            int preIndex = comparePrefix(searchNode.prefix, s, index); //index of first letter not contained in the prefix
+            if (preIndex < searchNode.prefix.length()) { //original prefix needs to be split up
+                Node newNode = new Node(searchNode.prefix.substring(0, preIndex)); //common prefix
+                searchNode.prefix = searchNode.prefix.substring(preIndex);
+                newNode.putChild(searchNode);
+                newNode.maxWeight = searchNode.maxWeight;
+                newNode.numWords = searchNode.numWords;
+                parent.putChild(newNode); // replaces searchNode, both start with the same letter
+                parent = newNode;
             } else {
-                if (searchNode.prefix.equals(s)) {
-                    searchNode.isWord = true;
-                } else if (comparePrefix(searchNode.prefix, s) > 0) {
-                    int preIndex = comparePrefix(searchNode.prefix, s); //index of first letter not contained in the prefix
-                    String ogPre = searchNode.prefix;
-                    String suffix = s.substring(preIndex); //suffix is suffix of word being entered
-                    if (preIndex == ogPre.length()) { //just adds new suffix to common prefix
-                        add(suffix, searchNode);
-                    } else { //if original prefix needs to be split up
-                        String suffixWord = ogPre.substring(preIndex); //suffix word is suffix of word already stored in node
-                        newNode.prefix = ogPre.substring(0, preIndex); //makes the common prefix the prefix of new node
-                        searchNode.prefix = suffixWord; // sets the suffix of the original node to be the prefix of the original node
-                        //searchNode.isWord = true;
-                        newNode.children[Character.toLowerCase(searchNode.prefix.charAt(0)) - 97] = searchNode; // sets the original node as the child of the new node with the common prefix
-                        add(suffix, newNode); //recursively calls add method with new suffix on the subtree created by the new node
-                        node.children[searchIndex] = newNode;
-                    }
-                }
+                parent = searchNode;
+            }
+            parent.numWords++;
+            index += preIndex;
+        }
+        if (parent.isWord) { // s was already in the tree, walk its path again to uncount it
+            Node n = node;
+            n.numWords--;
+            for (int i = 0; i < s.length(); i += n.prefix.length()) {
+                n = n.getChild(s.charAt(i));
+                n.numWords--;
             }
         }
-        return node; // don't forget to change it
+        parent.isWord = true;
+        return node;
     }
 
-
     /**
-     * A private method to check whether a given string is stored in the tree.
+     * Adds s below root without changing any existing node: every node on the path
+     * of s is copied, all other subtrees are shared with the old tree.
+     * Package-private so that ConcurrentCompactPrefixTree and PersistentCompactPrefixTree can
+     * add words without changing nodes that readers may see.
      *
-     * @param s    the string to check
-     * @param node the root of a tree
-     * @return true if the prefix is in the dictionary, false otherwise
+     * @param root the root of the tree, or null
+     * @param s    the word to add, folded; must not be in the tree
+     * @return the root of the new tree
      */
-    private boolean check(String s, Node node) {
-        int searchIndex = Character.toLowerCase(s.charAt(0)) - 97;
-        Node searchNode = node.children[searchIndex];
-
-        if (node == null || searchNode == null) {
-            return false;
-        } else if (!s.toLowerCase().contains(searchNode.prefix)) {
-            return false;
-        } else if (searchNode.prefix.equals(s)) {
-            if (searchNode.isWord) {
-                return true;
+    static Node copyAndAdd(Node root, String s) {
+        Node newRoot = root == null ? new Node("") : root.copy();
+        newRoot.numWords++;
+        Node parent = newRoot;
+        int index = 0; // index of the first char of s not matched yet
+        while (index < s.length()) {
+            Node child = parent.getChild(s.charAt(index));
+            if (child == null) { // the rest of s becomes a leaf
+                Node leaf = new Node(s.substring(index));
+                leaf.isWord = true;
+                leaf.numWords = 1;
+                parent.putChild(leaf);
+                return newRoot;
+            }
+            String label = child.prefix;
+            int matched = 1; // the first char was matched by getChild
+            while (matched < label.length() && index + matched < s.length()
+                    && label.charAt(matched) == s.charAt(index + matched)) {
+                matched++;
+            }
+            Node next;
+            if (matched < label.length()) { // split the label: a new node for the common part
+                next = new Node(label.substring(0, matched));
+                Node rest = child.copy();
+                rest.prefix = label.substring(matched);
+                next.putChild(rest);
+                next.maxWeight = rest.maxWeight;
+                next.numWords = rest.numWords;
             } else {
-                return false;
+                next = child.copy();
             }
+            next.numWords++;
+            parent.putChild(next); // replaces child, both start with the same letter
+            parent = next;
+            index += matched;
         }
-        int sufIndex = comparePrefix(searchNode.prefix, s);
-        String suffix = s.substring(sufIndex);
-        return check(suffix, searchNode);
+        parent.isWord = true;
+        return newRoot;
     }
 
     /**
-     * A private recursive method to check whether a given prefix is in the tree
+     * Removes a word from the tree with the given root and restores the compact form:
+     * the node of the word is deleted if it has no children, and a node that is left with
+     * no word and a single child (the word's node or its parent) is merged into that child.
+     * Package-private so that ConcurrentCompactPrefixTree and PersistentCompactPrefixTree can
+     * remove words without changing nodes that readers may see.
      *
-     * @param prefix the prefix
-     * @param node   the root of the tree
-     * @return true if the prefix is in the dictionary, false otherwise
+     * @param root the root of the tree
+     * @param s    the word to remove, folded; must be in the tree
+     * @param copy true to copy every node that changes instead of changing it
+     * @return the root of the tree without s, null if the tree became empty
      */
-    private boolean checkPrefix(String prefix, Node node) {
-        if (prefix.equalsIgnoreCase("")) {
-            return true;
+    static Node remove(Node root, String s, boolean copy) {
+        Node[] path = new Node[s.length() + 1]; // nodes from the root to the node of s
+        Node node = copy ? root.copy() : root;
+        node.numWords--;
+        path[0] = node;
+        int depth = 1;
+        int index = 0;
+        while (index < s.length()) {
+            Node child = node.getChild(s.charAt(index));
+            if (copy) {
+                child = child.copy();
+                node.putChild(child);
+            }
+            child.numWords--;
+            index += child.prefix.length();
+            node = child;
+            path[depth++] = node;
         }
-        int searchIndex = Character.toLowerCase(prefix.charAt(0)) - 97;
-        Node searchNode = node.children[searchIndex];
-
-        if (node == null || searchNode == null) {
-            return false;
+        node.isWord = false;
+        node.weight = 0;
+        int last = depth - 1; // the node of s, or its parent once the node is deleted
+        if (node.numChildren == 0) {
+            path[last - 1].removeChild(node.prefix.charAt(0));
+            last--;
+        }
+        Node merge = path[last];
+        if (last > 0 && !merge.isWord && merge.numChildren == 1) { // an inner node needs a word or 2 children
+            Node child = merge.onlyChild();
+            if (copy) {
+                child = child.copy();
+            }
+            child.prefix = merge.prefix + child.prefix;
+            path[last - 1].putChild(child); // replaces merge, both start with the same letter
+        }
+        for (int i = last; i >= 0; i--) { // s may have had the largest weight below these nodes
+            path[i].updateMaxWeight();
         }
+        return path[0].numChildren == 0 ? null : path[0];
+    }
 
-        int comparison = comparePrefix(searchNode.prefix, prefix);
+    /*Private Helper Methods Added By Me...*/
 
-        if (searchNode.prefix.equalsIgnoreCase(prefix)) {
-            return true;
-        } else {
-            if (searchNode.prefix.length() < prefix.length()) {
-                if (comparison == searchNode.prefix.length()) { //runs if the entire node prefix is part of given prefix
-                    prefix = prefix.substring(comparison); //trims prefix to remove what's already been confirmed
-                    return checkPrefix(prefix, searchNode);
-                }
-                return false;
-            } else if (searchNode.prefix.length() >= prefix.length()) { //checks whether the prefix is part of the word
-                if (comparison == prefix.length()) {
-                    return true;
+    /**
+     * The best-first search of complete, over the subtree of node
+     *
+     * @param node  the root of the subtree
+     * @param above the chars on the path from the root to node, not including its label
+     * @param k     the number of words to return
+     * @return up to k words of the subtree, largest weight first
+     */
+    private static String[] complete(Node node, String above, int k) {
+        if (k <= 0) {
+            return new String[0];
+        }
+        PriorityQueue<Completion> queue = new PriorityQueue<>(Completion.BEST_FIRST);
+        queue.add(new Completion(node, above + node.prefix, node.maxWeight));
+        ArrayList<String> words = new ArrayList<>(Math.min(k, 64));
+        while (!queue.isEmpty() && words.size() < k) {
+            Completion next = queue.poll();
+            if (next.node == null) {
+                words.add(next.path);
+                continue;
+            }
+            // open the subtree: its own word and its children go back into the queue
+            if (next.node.isWord) {
+                queue.add(new Completion(null, next.path, next.node.weight));
+            }
+            for (int i = 0; i < next.node.numSlots(); i++) {
+                Node child = next.node.getSlot(i);
+                if (child != null) {
+                    queue.add(new Completion(child, next.path + child.prefix, child.maxWeight));
                 }
-                return false;
             }
         }
-        return true;
+        return words.toArray(new String[0]);
     }
 
-    /*Private Helper Methods Added By Me...*/
+    /* Sets the weight of s, which is in the tree, and updates the largest weights on its path */
+    private void setWeight(String s, long weight) {
+        Node[] path = new Node[s.length() + 1];
+        Node node = root;
+        path[0] = node;
+        int depth = 1;
+        int index = 0;
+        while (index < s.length()) {
+            node = node.getChild(s.charAt(index));
+            index += node.prefix.length();
+            path[depth++] = node;
+        }
+        node.weight = weight;
+        for (int i = depth - 1; i >= 0; i--) {
+            path[i].updateMaxWeight();
+        }
+    }
 
+    /**
+     * Walks down the path of s[from..to) (with the case folded), counting the nodes visited.
+     *
+     * @param s      the characters to look up
+     * @param from   index of the first char
+     * @param to     index after the last char
+     * @param prefix true to look for any word starting with the chars, false for exactly the word
+     * @return the number of nodes visited, including the root; negated if the lookup failed
+     */
+    private int find(CharSequence s, int from, int to, boolean prefix) {
+        Node node = root;
+        if (node == null) {
+            return prefix && from == to ? 1 : -1;
+        }
+        int visited = 1;
+        int index = from;
+        while (index < to) {
+            node = node.getChild(folding.fold(s.charAt(index)));
+            if (node == null) {
+                return -visited;
+            }
+            visited++;
+            String label = node.prefix;
+            int length = label.length();
+            if (prefix) { // the prefix may end inside the label
+                length = Math.min(length, to - index);
+            } else if (length > to - index) {
+                return -visited;
+            }
+            for (int i = 0; i < length; i++) {
+                if (label.charAt(i) != folding.fold(s.charAt(index + i))) {
+                    return -visited;
+                }
+            }
+            index += length;
+        }
+        return prefix || node.isWord ? visited : -visited;
+    }
 
-    private int comparePrefix(String prefix, String s) { //returns index of last char in s and prefix where they are equal.
 
+    /* returns the number of leading chars of prefix that match s starting at index from of s */
+    private int comparePrefix(String prefix, String s, int from) {
         int i = 0;
-        while (i < prefix.length() && i < s.length() && Character.toLowerCase(prefix.charAt(i)) == Character.toLowerCase(s.charAt(i))) {
+        while (i < prefix.length() && from + i < s.length()
+                && prefix.charAt(i) == s.charAt(from + i)) {
             i++;
         }
         return i;
     }
 
 
-    private String toString(Node node, int numIndentations){ //recursively adds all nodes to a human readable string
-        String s = "";
-        if(node == null){
-            return s;
+    //pre-order, one line per node; the buffer is written to out once it holds PRINT_BUFFER chars
+    private void printTree(Node node, int numIndentations, StringBuilder buffer, Appendable out) throws IOException {
+        for (int i = 0; i < numIndentations; i++) {
+            buffer.append(' ');
         }
-        for (int i = 0; i < numIndentations; i++){
-            s += " ";
+        buffer.append(node.prefix).append(node.isWord ? "*\n" : "\n");
+        if (buffer != out && buffer.length() >= PRINT_BUFFER) {
+            out.append(buffer);
+            buffer.setLength(0);
         }
-        if (node.isWord){
-            s += node.prefix + "*\n";
-        }else {
-            s += node.prefix + "\n";
-        }
-        numIndentations += 1;
-        for(int i = 0; i < 26; i++){
-            s += toString(node.children[i], numIndentations);
+        for (int i = 0; i < node.numSlots(); i++) {
+            if (node.getSlot(i) != null) {
+                printTree(node.getSlot(i), numIndentations + 1, buffer, out);
+            }
         }
-        return s;
     }
 
-    /*returns an array list to be converted to String[] in the public method*/
-    private ArrayList<String> suggest(Node node, String word, int numSuggestions){
-        ArrayList<String> suggestions = new ArrayList<String>();
-        if (node == null){
-            return suggestions;
+    // Lets Suggester walk the nodes of this tree
+    private static final TrieNavigator<Node> NODES = new TrieNavigator<Node>() {
+        public String label(Node node) {
+            return node.prefix;
         }
 
-        if (node.isWord){
-            suggestions.add(node.prefix);
-            numSuggestions--;
-
+        public int labelLength(Node node) {
+            return node.prefix.length();
         }
-        if (numSuggestions == 0){
-            return suggestions;
+
+        public char labelChar(Node node, int i) {
+            return node.prefix.charAt(i);
         }
 
-        int searchIndex = Character.toLowerCase(word.charAt(0)) - 97;
-        Node searchNode = node.children[searchIndex];
+        public boolean isWord(Node node) {
+            return node.isWord;
+        }
 
-        if (searchNode == null){
-            return suggestions;
+        public Node child(Node node, char c) {
+            return node.getChild(c);
         }
 
-        int comparison = comparePrefix(searchNode.prefix, word);
-        if (comparison == 0) {
-            return suggestions;
+        public int numSlots(Node node) {
+            return node.numSlots();
         }
 
-        ArrayList<String> newSuggestions = new ArrayList<>();
+        public Node slot(Node node, int i) {
+            return node.getSlot(i);
+        }
+    };
 
-        if (word.equals(searchNode.prefix)){  //everything at this node and below should be suggested
-            newSuggestions = suggestAll(searchNode, numSuggestions);
-        } else if (comparison == searchNode.prefix.length()){
-            // if searchNode is a word, suggest it
-            // recurse with remainder
-            String remainder = word.substring(comparison);
-            newSuggestions = suggest(searchNode, remainder, numSuggestions);
-        } else if (comparison < searchNode.prefix.length()){ //everything at this node and below should be suggested
-            if (comparison == word.length()){
-                newSuggestions = suggestAll(searchNode, numSuggestions);
+    /* An entry of the queue of complete: a subtree (node is the root of it) or a word (node is null) */
+    private static final class Completion {
+        // largest weight first; then by path, which comes before every word in a subtree,
+        // so the words come out in the order complete returns them
+        static final Comparator<Completion> BEST_FIRST = (a, b) -> {
+            if (a.weight != b.weight) {
+                return Long.compare(b.weight, a.weight);
             }
+            return a.path.compareTo(b.path);
+        };
+
+        final Node node;
+        final String path; // the chars from the root to the end of node's label, or the word
+        final long weight; // the largest weight in the subtree, or the weight of the word
+
+        Completion(Node node, String path, long weight) {
+            this.node = node;
+            this.path = path;
+            this.weight = weight;
         }
+    }
+
+    // --------- Class Node ------------
+    // Represents a node in a compact prefix tree. Package-private so that builders in this package can create nodes.
+    // Children are stored in one of three layouts, picked by the number of children
+    // (similar to an adaptive radix tree):
+    //  - leaf:   no child arrays at all
+    //  - sorted: keys[i] is the first letter of children[i], kept in alphabetical order;
+    //            arrays of length 4, then 16 once the node has more than 4 children, then doubled
+    //            (binary search once there are more than 16 children)
+    //  - dense:  children indexed by letter - base, keys == null; used for more than 16 children
+    //            whose first letters are close together: 26 slots from 'a' for a-z, else
+    //            32 slots from the smallest letter (a block of Cyrillic, Greek, accented letters...)
+    static class Node {
+        static final int SMALL = 4; // capacity of the smallest sorted layout
+        static final int MEDIUM = 16; // capacity of the larger sorted layout
+        static final int DENSE = 26; // one slot per letter a-z
+        static final int DENSE_SPAN = 32; // slots of a dense layout for other letters
 
-        for (int i = 0; i < newSuggestions.size(); i++){ //adds suggestions to array list to  be returned
-            suggestions.add(node.prefix + newSuggestions.get(i));
+        String prefix; // prefix stored in the node
+        boolean isWord; // true if by concatenating all prefixes on the path from the root to this node, we get a valid word
+        char[] keys; // first letters of the children (sorted layout only)
+        char base; // letter of children[0] (dense layout only)
+        Node[] children; // array of children, null for a leaf
+        int numChildren; // number of non-null children
+        int numWords; // number of words in the subtree of this node, its own word included
+        long weight; // weight of the word ending at this node, see add(word, weight)
+        long maxWeight; // largest weight of a word in the subtree of this node
+
+        Node(String prefix) {
+            isWord = false;
+            this.prefix = prefix;
         }
 
-        return suggestions;
-    }
-    /*Helper method to get suggestions from child arrays*/
-    private ArrayList<String> suggestAll(Node node, int numSuggestions){
-        ArrayList<String> suggestions = new ArrayList<String>();
+        /* Returns the child whose prefix starts with c, or null */
+        Node getChild(char c) {
+            if (children == null) {
+                return null;
+            }
+            if (keys == null) {
+                int i = c - base;
+                return i >= 0 && i < children.length ? children[i] : null;
+            }
+            if (numChildren > MEDIUM) {
+                int i = Arrays.binarySearch(keys, 0, numChildren, c);
+                return i >= 0 ? children[i] : null;
+            }
+            for (int i = 0; i < numChildren; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+                if (keys[i] > c) {
+                    break;
+                }
+            }
+            return null;
+        }
 
-        if (node == null) {
-            return  suggestions;
+        /* Adds child, or replaces the child that starts with the same letter. Grows the layout when it is full */
+        void putChild(Node child) {
+            char c = child.prefix.charAt(0);
+            if (children == null) {
+                keys = new char[SMALL];
+                children = new Node[SMALL];
+            }
+            if (keys == null && (c < base || c - base >= children.length)) {
+                toSorted(); // letters outside the dense range can't be indexed densely
+            }
+            if (keys == null) {
+                if (children[c - base] == null) {
+                    numChildren++;
+                }
+                children[c - base] = child;
+                return;
+            }
+            int i = 0;
+            while (i < numChildren && keys[i] < c) {
+                i++;
+            }
+            if (i < numChildren && keys[i] == c) {
+                children[i] = child;
+                return;
+            }
+            if (numChildren == keys.length) {
+                grow();
+                if (keys == null) { // switched to the dense layout
+                    putChild(child);
+                    return;
+                }
+            }
+            System.arraycopy(keys, i, keys, i + 1, numChildren - i);
+            System.arraycopy(children, i, children, i + 1, numChildren - i);
+            keys[i] = c;
+            children[i] = child;
+            numChildren++;
         }
 
-        if (node.isWord) {
-            suggestions.add(node.prefix);
-            numSuggestions--;
+        /* Replaces the children with sorted[from..to), which must be in alphabetical order, and
+         * counts the words below them. Picks the same layout that adding the children one by one
+         * would have grown to. */
+        void setChildren(Node[] sorted, int from, int to) {
+            numWords = isWord ? 1 : 0;
+            for (int i = from; i < to; i++) {
+                numWords += sorted[i].numWords;
+            }
+            numChildren = to - from;
+            if (numChildren == 0) {
+                keys = null;
+                children = null;
+                return;
+            }
+            char first = sorted[from].prefix.charAt(0);
+            char last = sorted[to - 1].prefix.charAt(0);
+            if (numChildren > MEDIUM && toDense(first, last)) {
+                for (int i = from; i < to; i++) {
+                    children[sorted[i].prefix.charAt(0) - base] = sorted[i];
+                }
+                return;
+            }
+            int capacity = numChildren <= SMALL ? SMALL : MEDIUM;
+            while (capacity < numChildren) {
+                capacity *= 2;
+            }
+            keys = new char[capacity];
+            children = new Node[capacity];
+            for (int i = 0; i < numChildren; i++) {
+                children[i] = sorted[from + i];
+                keys[i] = children[i].prefix.charAt(0);
+            }
         }
 
-        for (int i = 0; i < node.children.length && numSuggestions > 0; i++){
-            ArrayList<String> childSuggestions = suggestAll(node.children[i], numSuggestions);
-            numSuggestions -= childSuggestions.size();
-            for (int j = 0; j < childSuggestions.size(); j++) {
-                suggestions.add(node.prefix + childSuggestions.get(j));
+        /* Removes the child whose prefix starts with c, which must exist. Shrinks the layout
+         * to the one setChildren would pick for the remaining children */
+        void removeChild(char c) {
+            if (keys == null) {
+                children[c - base] = null;
+            } else {
+                int i = 0;
+                while (keys[i] != c) {
+                    i++;
+                }
+                System.arraycopy(keys, i + 1, keys, i, numChildren - i - 1);
+                System.arraycopy(children, i + 1, children, i, numChildren - i - 1);
+                children[numChildren - 1] = null;
+            }
+            numChildren--;
+            int capacity = numChildren <= SMALL ? SMALL : MEDIUM;
+            if (numChildren == 0 || numChildren <= MEDIUM && (keys == null || keys.length > capacity)) {
+                Node[] remaining = new Node[numChildren];
+                int n = 0;
+                for (int i = 0; i < numSlots(); i++) {
+                    if (children[i] != null) {
+                        remaining[n++] = children[i];
+                    }
+                }
+                setChildren(remaining, 0, n);
             }
         }
 
-        return suggestions;
-    }
+        /* Returns the child of a node with exactly one child */
+        Node onlyChild() {
+            for (int i = 0; i < numSlots(); i++) {
+                if (children[i] != null) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
 
+        /* Returns a new node with the same label, flag and children, in child arrays of its own */
+        Node copy() {
+            Node copy = new Node(prefix);
+            copy.isWord = isWord;
+            copy.keys = keys == null ? null : keys.clone();
+            copy.base = base;
+            copy.children = children == null ? null : children.clone();
+            copy.numChildren = numChildren;
+            copy.numWords = numWords;
+            copy.weight = weight;
+            copy.maxWeight = maxWeight;
+            return copy;
+        }
 
+        /* Recomputes maxWeight from the node's own word and the maxWeight of its children */
+        void updateMaxWeight() {
+            long max = isWord ? weight : 0;
+            for (int i = 0; i < numSlots(); i++) {
+                if (children[i] != null && children[i].maxWeight > max) {
+                    max = children[i].maxWeight;
+                }
+            }
+            maxWeight = max;
+        }
 
-    // --------- Private class Node ------------
-    // Represents a node in a compact prefix tree
-    private class Node {
-        String prefix; // prefix stored in the node
-        Node children[]; // array of children (26 children)
-        boolean isWord; // true if by concatenating all prefixes on the path from the root to this node, we get a valid word
+        /* Moves a full sorted layout to the next larger one */
+        private void grow() {
+            if (keys.length < MEDIUM) {
+                keys = Arrays.copyOf(keys, MEDIUM);
+                children = Arrays.copyOf(children, MEDIUM);
+            } else {
+                char[] sortedKeys = keys;
+                Node[] sortedChildren = children;
+                if (toDense(keys[0], keys[numChildren - 1])) {
+                    for (int i = 0; i < numChildren; i++) {
+                        children[sortedKeys[i] - base] = sortedChildren[i];
+                    }
+                } else { // letters too far apart to be indexed densely, keep the layout sorted
+                    keys = Arrays.copyOf(keys, keys.length * 2);
+                    children = Arrays.copyOf(children, children.length * 2);
+                }
+            }
+        }
 
-        Node() {
-            isWord = false;
-            prefix = "";
-            children = new Node[26]; // initialize the array of children
+        /* Switches to an empty dense layout for first letters first..last if they are close enough
+         * together, and returns whether it did */
+        private boolean toDense(char first, char last) {
+            if (first >= 'a' && last <= 'z') {
+                base = 'a';
+                children = new Node[DENSE];
+            } else if (last - first < DENSE_SPAN) {
+                base = first;
+                children = new Node[DENSE_SPAN];
+            } else {
+                return false;
+            }
+            keys = null;
+            return true;
+        }
+
+        /* Moves a dense layout back to a sorted one with room for more children */
+        private void toSorted() {
+            char[] newKeys = new char[children.length * 2];
+            Node[] newChildren = new Node[children.length * 2];
+            int n = 0;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != null) {
+                    newKeys[n] = (char) (base + i);
+                    newChildren[n++] = children[i];
+                }
+            }
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        /* Number of child slots to iterate over with getSlot */
+        int numSlots() {
+            if (children == null) {
+                return 0;
+            }
+            return keys == null ? children.length : numChildren;
         }
 
-        // FILL IN CODE: Add other methods to class Node as needed
+        /* Returns the i-th child slot in alphabetical order; may be null in the dense layout */
+        Node getSlot(int i) {
+            return children[i];
+        }
     }
 
 }
@@ -0,0 +1,273 @@
+package dictionary;
+
+import dictionary.CompactPrefixTree.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Builds a CompactPrefixTree from words given in sorted order, in one pass over the words.
+ *
+ * Because the words are sorted, only the nodes on the path of the last word can still get
+ * new children. The builder keeps these "open" nodes on a stack. A new word shares a prefix
+ * with the last word; every open node below that prefix is finished and will never change,
+ * so its label and child array are created once, with their final size.
+ * No temporary nodes are created and no labels are split after the fact.
+ *
+ * Words that arrive out of order are still accepted: the builder then collects all words,
+ * sorts them and runs the same pass when build() is called.
+ * A builder can only build one tree.
+ */
+public class CompactPrefixTreeBuilder {
+
+    private final CaseFolding folding; // applied to every word added
+    private Node root = new Node("");
+
+    // open nodes, from the root (index 0) down to the node of the last word
+    private Node[] path = new Node[16];
+    private int[] starts = new int[16]; // index in last where the label of each open node starts
+    private int[] childBase = new int[16]; // index in closed where the finished children of each open node start
+    private int depth = 1; // number of open nodes
+
+    // finished nodes that are not attached to their parent yet, grouped by parent
+    private Node[] closed = new Node[64];
+    private int numClosed;
+
+    private String last = ""; // the last word added
+    private int numWords;
+    private ArrayList<String> unsorted; // every word so far, once a word arrived out of order
+
+    /**
+     * Creates a builder for an empty tree
+     */
+    public CompactPrefixTreeBuilder() {
+        this(CaseFolding.LOWER);
+    }
+
+    /**
+     * Creates a builder for an empty tree that folds the case of words with the given folding
+     *
+     * @param folding the case folding, see CaseFolding
+     */
+    public CompactPrefixTreeBuilder(CaseFolding folding) {
+        this.folding = Objects.requireNonNull(folding);
+        path[0] = root;
+    }
+
+    /**
+     * Adds a word. Words should be added in sorted order (after folding their case);
+     * duplicates and empty words are ignored.
+     *
+     * @param word the word to add
+     * @return this builder
+     */
+    public CompactPrefixTreeBuilder add(String word) {
+        if (word.isEmpty()) {
+            return this;
+        }
+        String s = folding.fold(word);
+        if (unsorted != null) {
+            unsorted.add(s);
+            return this;
+        }
+        int comparison = s.compareTo(last);
+        if (comparison < 0) {
+            collectWords();
+            unsorted.add(s);
+        } else if (comparison > 0) {
+            append(s);
+        }
+        return this;
+    }
+
+    /**
+     * Adds all words, see add(String)
+     *
+     * @param words the words to add
+     * @return this builder
+     */
+    public CompactPrefixTreeBuilder addAll(Iterable<String> words) {
+        for (String word : words) {
+            add(word);
+        }
+        return this;
+    }
+
+    /**
+     * Finishes the tree.
+     *
+     * @return the tree with all words added to this builder
+     */
+    public CompactPrefixTree build() {
+        return new CompactPrefixTree(buildRoot(), folding);
+    }
+
+    /**
+     * Builds a tree from the given words using several threads. The words are split into
+     * groups by their first letter; each group becomes one subtree of the root and is built
+     * on a ForkJoinPool with the given parallelism. Gives the same tree as adding the
+     * words one by one; words don't have to be sorted.
+     *
+     * @param words       the words to add
+     * @param parallelism the number of threads to build with
+     * @return the tree with all the words
+     */
+    public static CompactPrefixTree buildParallel(Iterable<String> words, int parallelism) {
+        return buildParallel(words, parallelism, CaseFolding.LOWER);
+    }
+
+    /**
+     * Same as buildParallel(words, parallelism), folding the case of words with the given folding
+     *
+     * @param words       the words to add
+     * @param parallelism the number of threads to build with
+     * @param folding     the case folding, see CaseFolding
+     * @return the tree with all the words
+     */
+    public static CompactPrefixTree buildParallel(Iterable<String> words, int parallelism, CaseFolding folding) {
+        TreeMap<Character, List<String>> groups = new TreeMap<>(); // words by first letter, in alphabetical order
+        for (String word : words) {
+            if (!word.isEmpty()) {
+                String s = folding.fold(word);
+                groups.computeIfAbsent(s.charAt(0), c -> new ArrayList<>()).add(s);
+            }
+        }
+        if (groups.isEmpty()) {
+            return new CompactPrefixTree((Node) null, folding);
+        }
+
+        List<ForkJoinTask<Node>> tasks = new ArrayList<>();
+        for (List<String> group : groups.values()) {
+            tasks.add(ForkJoinTask.adapt(() -> new CompactPrefixTreeBuilder(folding).addAll(group).buildRoot().getSlot(0)));
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (ForkJoinTask<Node> task : tasks) {
+                pool.execute(task);
+            }
+            Node[] subtrees = new Node[tasks.size()];
+            for (int i = 0; i < subtrees.length; i++) {
+                subtrees[i] = tasks.get(i).join();
+            }
+            Node root = new Node("");
+            root.setChildren(subtrees, 0, subtrees.length);
+            return new CompactPrefixTree(root, folding);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Finishes the tree and returns its root
+     *
+     * @return the root of the tree, or null if no words were added
+     */
+    Node buildRoot() {
+        if (unsorted != null) {
+            ArrayList<String> words = unsorted;
+            unsorted = null;
+            Collections.sort(words);
+            for (String word : words) {
+                if (!word.equals(last)) {
+                    append(word);
+                }
+            }
+        }
+        finishAll();
+        return numWords == 0 ? null : root;
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /* Adds a word that comes after the last word in sorted order */
+    private void append(String s) {
+        int common = 0; // length of the common prefix of s and the last word
+        int max = Math.min(s.length(), last.length());
+        while (common < max && s.charAt(common) == last.charAt(common)) {
+            common++;
+        }
+
+        int end = last.length(); // where the label of the deepest open node ends
+        while (depth > 1 && starts[depth - 1] >= common) { // these nodes are below the common prefix
+            end = finish(depth - 1, starts[depth - 1], end);
+            depth--;
+        }
+        if (end > common) { // the deepest open node continues past the common prefix: split it
+            finish(depth - 1, common, end);
+            path[depth - 1] = new Node(null); // the common part stays open, its only child so far is the rest
+        }
+
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+            starts = Arrays.copyOf(starts, depth * 2);
+            childBase = Arrays.copyOf(childBase, depth * 2);
+        }
+        Node node = new Node(null);
+        node.isWord = true;
+        path[depth] = node;
+        starts[depth] = common;
+        childBase[depth] = numClosed;
+        depth++;
+
+        last = s;
+        numWords++;
+    }
+
+    /* Gives the open node at the given level its label last[from..to) and its finished children,
+     * then moves it to the finished children of its parent. Returns from. */
+    private int finish(int level, int from, int to) {
+        Node node = path[level];
+        node.prefix = last.substring(from, to);
+        node.setChildren(closed, childBase[level], numClosed);
+        Arrays.fill(closed, childBase[level], numClosed, null);
+        numClosed = childBase[level];
+        if (numClosed == closed.length) {
+            closed = Arrays.copyOf(closed, numClosed * 2);
+        }
+        closed[numClosed++] = node;
+        return from;
+    }
+
+    /* Finishes every open node, attaching the top level nodes to the root */
+    private void finishAll() {
+        int end = last.length();
+        while (depth > 1) {
+            end = finish(depth - 1, starts[depth - 1], end);
+            depth--;
+        }
+        root.setChildren(closed, 0, numClosed);
+        Arrays.fill(closed, 0, numClosed, null);
+        numClosed = 0;
+    }
+
+    /* Switches to collecting words: moves the words added so far into the unsorted list and starts over */
+    private void collectWords() {
+        unsorted = new ArrayList<>(numWords * 2);
+        finishAll();
+        collectWords(root, new StringBuilder());
+        root = new Node("");
+        path[0] = root;
+        last = "";
+        numWords = 0;
+    }
+
+    private void collectWords(Node node, StringBuilder word) {
+        int length = word.length();
+        word.append(node.prefix);
+        if (node.isWord) {
+            unsorted.add(word.toString());
+        }
+        for (int i = 0; i < node.numSlots(); i++) {
+            if (node.getSlot(i) != null) {
+                collectWords(node.getSlot(i), word);
+            }
+        }
+        word.setLength(length);
+    }
+}
@@ -0,0 +1,301 @@
+package dictionary;
+
+import dictionary.CompactPrefixTree.Node;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A compact prefix tree that can be read by many threads while words are being added or removed.
+ *
+ * Readers never block and never see a half-added word. The nodes of a published tree are
+ * never changed again: add and remove copy the nodes on the path of the word (copy-on-write),
+ * shares every other subtree with the previous tree, and then publishes the new tree with a
+ * single volatile write. A reader takes the current tree once per call and answers from it,
+ * so every call sees either all of an add or none of it. Writers are serialized.
+ */
+public class ConcurrentCompactPrefixTree implements Dictionary, Iterable<String> {
+
+    // the current tree; its nodes are never modified, a new tree replaces it
+    private volatile CompactPrefixTree tree;
+    private final Object writeLock = new Object();
+
+    /**
+     * Creates an empty dictionary
+     */
+    public ConcurrentCompactPrefixTree() {
+        tree = new CompactPrefixTree();
+    }
+
+    /**
+     * Creates an empty dictionary that folds the case of words with the given folding
+     *
+     * @param folding the case folding, see CaseFolding
+     */
+    public ConcurrentCompactPrefixTree(CaseFolding folding) {
+        tree = new CompactPrefixTree(folding);
+    }
+
+    /**
+     * Creates a dictionary using words from the given file
+     *
+     * @param filename the name of the file with words
+     */
+    public ConcurrentCompactPrefixTree(String filename) {
+        tree = new CompactPrefixTree(filename);
+    }
+
+    /**
+     * Adds a given word to the dictionary. Threads reading the dictionary at the same
+     * time see the word once this method returns, and never see part of it.
+     *
+     * @param word the word to add to the dictionary
+     */
+    public void add(String word) {
+        addAll(Collections.singletonList(word));
+    }
+
+    /**
+     * Adds several words and publishes them together: readers see either none or all of them.
+     *
+     * @param words the words to add
+     */
+    public void addAll(Iterable<String> words) {
+        synchronized (writeLock) {
+            CompactPrefixTree current = tree;
+            Node root = current.root();
+            HashSet<String> added = new HashSet<>(); // folded words of this batch, copyAndAdd needs new words
+            for (String word : words) {
+                if (!word.isEmpty() && !current.check(word)) {
+                    String folded = current.getFolding().fold(word);
+                    if (added.add(folded)) {
+                        root = CompactPrefixTree.copyAndAdd(root, folded);
+                    }
+                }
+            }
+            if (root != current.root()) {
+                tree = new CompactPrefixTree(root, current.getFolding());
+            }
+        }
+    }
+
+    /**
+     * Removes a word from the dictionary, see CompactPrefixTree.remove. Like add, copies
+     * the nodes it changes and publishes the new tree at once.
+     *
+     * @param word the word to remove
+     * @return true if the word was in the dictionary
+     */
+    public boolean remove(String word) {
+        synchronized (writeLock) {
+            CompactPrefixTree current = tree;
+            if (word.isEmpty() || !current.check(word)) {
+                return false;
+            }
+            tree = new CompactPrefixTree(CompactPrefixTree.remove(current.root(), current.getFolding().fold(word), true),
+                    current.getFolding());
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of words in the dictionary
+     *
+     * @return the number of words
+     */
+    public int numWords() {
+        return tree.numWords();
+    }
+
+    /**
+     * Returns the number of words that start with the given prefix, see CompactPrefixTree.countPrefix
+     *
+     * @param prefix the prefix of the words
+     * @return the number of words that start with prefix
+     */
+    public int countPrefix(String prefix) {
+        return tree.countPrefix(prefix);
+    }
+
+    /**
+     * Checks if a given word is in the dictionary
+     *
+     * @param word the word to check
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean check(String word) {
+        return tree.check(word);
+    }
+
+    /**
+     * Checks if a given prefix is stored in the dictionary
+     *
+     * @param prefix The prefix of a word
+     * @return true if this prefix is a prefix of any word in the dictionary,
+     * and false otherwise
+     */
+    public boolean checkPrefix(String prefix) {
+        return tree.checkPrefix(prefix);
+    }
+
+    /**
+     * Checks if the characters word[from..to) form a word in the dictionary,
+     * without creating any objects. See CompactPrefixTree.check(CharSequence, int, int).
+     *
+     * @param word the characters to check
+     * @param from index of the first char of the word
+     * @param to   index after the last char of the word
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean check(CharSequence word, int from, int to) {
+        return tree.check(word, from, to);
+    }
+
+    /**
+     * Checks if the characters prefix[from..to) are a prefix of any word in the dictionary,
+     * without creating any objects.
+     *
+     * @param prefix the characters to check
+     * @param from   index of the first char of the prefix
+     * @param to     index after the last char of the prefix
+     * @return true if this prefix is a prefix of any word in the dictionary,
+     * and false otherwise
+     */
+    public boolean checkPrefix(CharSequence prefix, int from, int to) {
+        return tree.checkPrefix(prefix, from, to);
+    }
+
+    /**
+     * Returns suggestions for a word, see CompactPrefixTree.suggest(String, int)
+     *
+     * @param word           the target word
+     * @param numSuggestions the number of suggestions to return
+     * @return the array with suggestions
+     */
+    public String[] suggest(String word, int numSuggestions) {
+        return tree.suggest(word, numSuggestions);
+    }
+
+    /**
+     * Same as suggest(word, numSuggestions), optionally counting a swap of two
+     * adjacent letters as a single edit.
+     *
+     * @param word           the target word
+     * @param numSuggestions the number of suggestions to return
+     * @param transpositions true to count swapped adjacent letters as one edit
+     * @return the array with suggestions
+     */
+    public String[] suggest(String word, int numSuggestions, boolean transpositions) {
+        return tree.suggest(word, numSuggestions, transpositions);
+    }
+
+    /**
+     * Checks a batch of words at once, all against the same version of the dictionary
+     *
+     * @param words the words to check
+     * @return an array with result[i] true if words.get(i) is in the dictionary
+     */
+    public boolean[] checkAll(List<String> words) {
+        return tree.checkAll(words);
+    }
+
+    /**
+     * Returns suggestions for a batch of words, all from the same version of the dictionary
+     *
+     * @param words          the target words
+     * @param numSuggestions the number of suggestions for each word
+     * @return an array with result[i] the same as suggest(words.get(i), numSuggestions)
+     */
+    public String[][] suggestAll(List<String> words, int numSuggestions) {
+        return tree.suggestAll(words, numSuggestions);
+    }
+
+    /**
+     * Returns how the dictionary folds the case of words
+     *
+     * @return the case folding
+     */
+    public CaseFolding getFolding() {
+        return tree.getFolding();
+    }
+
+    /**
+     * Returns an immutable snapshot of the current words
+     *
+     * @return the frozen dictionary
+     */
+    public FrozenCompactPrefixTree freeze() {
+        return tree.freeze();
+    }
+
+    /**
+     * Writes the current words to a binary file, see CompactPrefixTree.save
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        tree.save(path);
+    }
+
+    /**
+     * Returns the words in the dictionary, in alphabetical order. The stream enumerates
+     * the words of the version current when it was created, even if words are added meanwhile.
+     *
+     * @return the stream of words
+     */
+    public Stream<String> words() {
+        return tree.words();
+    }
+
+    /**
+     * Returns the words that start with the given prefix, from the current version (see words())
+     *
+     * @param prefix the prefix of the words
+     * @return the stream of words
+     */
+    public Stream<String> words(String prefix) {
+        return tree.words(prefix);
+    }
+
+    /**
+     * Returns an iterator over the words of the current version, in alphabetical order
+     *
+     * @return the iterator
+     */
+    public Iterator<String> iterator() {
+        return tree.iterator();
+    }
+
+    /**
+     * Returns a cursor over the current version (see PrefixCursor). Words added or removed
+     * later don't affect it, so it stays valid while the tree changes.
+     *
+     * @return a cursor at the empty prefix
+     */
+    public PrefixCursor cursor() {
+        return tree.cursor();
+    }
+
+    /**
+     * Writes the same representation as CompactPrefixTree.printTree(Appendable) for the current words
+     *
+     * @param out where to write the tree
+     * @throws IOException if out throws it
+     */
+    public void printTree(Appendable out) throws IOException {
+        tree.printTree(out);
+    }
+
+    /**
+     * Returns the same representation as CompactPrefixTree.toString() for the current words
+     */
+    public String toString() {
+        return tree.toString();
+    }
+}
@@ -0,0 +1,324 @@
+package dictionary;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A spell-check server: loads a dictionary once and answers check, checkPrefix and suggest
+ * requests from clients on a local (loopback) socket.
+ *
+ * Protocol: UTF-8 text, one request per line and one response line per request, in order.
+ * Clients may send many requests without waiting for the responses (pipelining).
+ * <pre>
+ *  CHECK word [word ...]        1 or 0 for each word, separated by spaces
+ *  PREFIX prefix [prefix ...]   1 or 0 for each prefix
+ *  SUGGEST k word               the result of suggest(word, k), separated by spaces
+ *  QUIT                         closes the connection, no response
+ * </pre>
+ * A request that can't be understood gets "ERR message". A line longer than MAX_LINE bytes
+ * gets an error and the connection is closed.
+ *
+ * Every connection is served by a virtual thread of its own with blocking I/O. Responses are
+ * buffered and written once no more requests are waiting, so a pipelined window of requests
+ * is answered with a few large writes. Backpressure comes from the socket buffers: a client
+ * that doesn't read its responses blocks the server's writes, and the server then stops
+ * reading its requests. At most maxConnections connections are served at once, further
+ * clients wait in the listen backlog.
+ */
+public final class DictionaryServer implements Closeable {
+    static final int DEFAULT_PORT = 7777;
+    static final int MAX_LINE = 64 * 1024; // longest request line, in bytes
+    static final int MAX_SUGGESTIONS = 100;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Dictionary dictionary;
+    private final ServerSocket serverSocket;
+    private final Semaphore connections; // one permit for each connection that may be open
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Starts a server on the loopback address
+     *
+     * @param dictionary     the dictionary to serve; it is read by many threads at once, so it must
+     *                       not be changed (or must be a ConcurrentCompactPrefixTree)
+     * @param port           the port to listen on, 0 for any free port
+     * @param maxConnections the largest number of connections served at once
+     * @throws IOException if the port can't be opened
+     */
+    public DictionaryServer(Dictionary dictionary, int port, int maxConnections) throws IOException {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be at least 1: " + maxConnections);
+        }
+        this.dictionary = dictionary;
+        connections = new Semaphore(maxConnections);
+        serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        acceptor = Thread.ofPlatform().name("dictionary-server").start(this::acceptLoop);
+    }
+
+    /**
+     * Loads the words from a file and serves them until the process is stopped.
+     * Usage: DictionaryServer wordsFile [port] [maxConnections]
+     *
+     * @param args the command line arguments
+     * @throws IOException if the port can't be opened
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: DictionaryServer wordsFile [port] [maxConnections]");
+            return;
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        int maxConnections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        long start = System.nanoTime();
+        FrozenCompactPrefixTree dictionary = new CompactPrefixTree(args[0]).freeze();
+        DictionaryServer server = new DictionaryServer(dictionary, port, maxConnections);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Loaded " + dictionary.numWords() + " words in " + (System.nanoTime() - start) / 1000000
+                + " ms, listening on " + server.address());
+    }
+
+    /**
+     * Returns the address the server listens on
+     *
+     * @return the loopback address and port
+     */
+    public InetSocketAddress address() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and waits for their threads to finish
+     */
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+        acceptor.interrupt();
+        for (Socket socket : open) {
+            closeQuietly(socket);
+        }
+        executor.close();
+    }
+
+    /**
+     * Answers one request line
+     *
+     * @param request the request, without the line break
+     * @return the response line, without the line break
+     */
+    String respond(String request) {
+        String[] parts = request.trim().split(" +");
+        String command = parts[0].toUpperCase(Locale.ROOT);
+        switch (command) {
+            case "CHECK":
+            case "PREFIX":
+                if (parts.length < 2) {
+                    return "ERR " + command + " needs at least one word";
+                }
+                String[] words = Arrays.copyOfRange(parts, 1, parts.length);
+                boolean[] found = command.equals("CHECK") ? checkAll(words) : checkPrefixAll(words);
+                StringBuilder sb = new StringBuilder(2 * found.length);
+                for (int i = 0; i < found.length; i++) {
+                    sb.append(i == 0 ? "" : " ").append(found[i] ? '1' : '0');
+                }
+                return sb.toString();
+            case "SUGGEST":
+                if (parts.length != 3) {
+                    return "ERR usage: SUGGEST k word";
+                }
+                int k;
+                try {
+                    k = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException e) {
+                    k = -1;
+                }
+                if (k < 1 || k > MAX_SUGGESTIONS) {
+                    return "ERR k must be a number from 1 to " + MAX_SUGGESTIONS;
+                }
+                return String.join(" ", dictionary.suggest(parts[2], k));
+            case "":
+                return "ERR empty request";
+            default:
+                return "ERR unknown command " + parts[0];
+        }
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /* Accepts connections while a permit is free, each one is served on a virtual thread */
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                connections.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                connections.release();
+                if (closed) {
+                    return;
+                }
+                continue; // the client went away before it was accepted
+            }
+            open.add(socket);
+            if (closed) { // close() may have missed it
+                closeQuietly(socket);
+            }
+            executor.execute(() -> {
+                try {
+                    serve(socket);
+                } finally {
+                    open.remove(socket);
+                    closeQuietly(socket);
+                    connections.release();
+                }
+            });
+        }
+    }
+
+    /* Answers the requests of one connection until the client quits or disconnects */
+    private void serve(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            LineReader in = new LineReader(socket.getInputStream());
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+            try {
+                String request;
+                while ((request = in.readLine()) != null) {
+                    if (request.trim().equalsIgnoreCase("QUIT")) {
+                        break;
+                    }
+                    out.write(respond(request));
+                    out.write('\n');
+                    if (!in.hasBuffered()) { // answer the pipelined requests read so far in one go
+                        out.flush();
+                    }
+                }
+            } catch (ProtocolException e) {
+                out.write("ERR " + e.getMessage() + "\n");
+                out.flush();
+                // closing with unread input would reset the connection, and the client could lose the error
+                socket.shutdownOutput();
+                socket.setSoTimeout(1000);
+                in.skipAll();
+            }
+            out.flush();
+        } catch (IOException e) {
+            // the client disconnected or the server is closing
+        }
+    }
+
+    /* Batches go through checkAll when the dictionary has it, so words with common prefixes share the work */
+    private boolean[] checkAll(String[] words) {
+        boolean[] found = new boolean[words.length];
+        if (words.length > 1 && dictionary instanceof PackedTrie) {
+            ((PackedTrie) dictionary).checkAll(words, found);
+        } else if (words.length > 1 && dictionary instanceof CompactPrefixTree) {
+            ((CompactPrefixTree) dictionary).checkAll(words, found);
+        } else {
+            for (int i = 0; i < words.length; i++) {
+                found[i] = dictionary.check(words[i]);
+            }
+        }
+        return found;
+    }
+
+    private boolean[] checkPrefixAll(String[] prefixes) {
+        boolean[] found = new boolean[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            found[i] = dictionary.checkPrefix(prefixes[i]);
+        }
+        return found;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    /* Reads UTF-8 lines of at most MAX_LINE bytes, ending with \n or \r\n, from a stream */
+    private static final class LineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position; // next byte of buffer to read
+        private int limit; // end of the bytes read into buffer
+        private byte[] line = new byte[256];
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        /* Returns the next line, or null at the end of the input; a line that is too long is a ProtocolException */
+        String readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return length == 0 ? null : decode(length); // a last line without a line break
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    return decode(length > 0 && line[length - 1] == '\r' ? length - 1 : length);
+                }
+                if (length == MAX_LINE) {
+                    throw new ProtocolException("line longer than " + MAX_LINE + " bytes");
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, Math.min(length * 2, MAX_LINE));
+                }
+                line[length++] = b;
+            }
+        }
+
+        /* Reads and drops the rest of the input */
+        void skipAll() throws IOException {
+            position = limit = 0;
+            while (in.read(buffer) > 0) {
+                // dropped
+            }
+        }
+
+        /* True if more bytes were already received and can be read without blocking */
+        boolean hasBuffered() throws IOException {
+            return position < limit || in.available() > 0;
+        }
+
+        private String decode(int length) {
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package dictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Finds the misspelled words of a document, for scanning large files.
+ *
+ * The file is memory-mapped in chunks (1 MB by default), and every chunk boundary is moved
+ * forward to the end of the word it falls into, so the chunks can be checked in parallel.
+ * A word is a run of ASCII letters; bytes of UTF-8 encoded non-ASCII chars are part of words
+ * too, and so is an apostrophe or a hyphen with a letter on both sides ("don't", "well-known").
+ * Everything else (spaces, digits, other punctuation) separates words. A word with apostrophes or
+ * hyphens is correct if the dictionary has it, or else if it has every part between them, so
+ * "well-known" needs no entry of its own; a misspelled one is reported once, as a whole.
+ * Words are checked in place through a CharSequence view of the mapped bytes, so a correct word
+ * doesn't create any objects; only misspelled words (and words with non-ASCII chars) are decoded
+ * into strings.
+ */
+public final class DocumentChecker {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final boolean[] WORD_BYTE = new boolean[256]; // indexed by byte & 0xFF, the letters
+
+    static {
+        for (int c = 'a'; c <= 'z'; c++) {
+            WORD_BYTE[c] = true;
+            WORD_BYTE[c - 'a' + 'A'] = true;
+        }
+        for (int b = 0x80; b < 0x100; b++) {
+            WORD_BYTE[b] = true;
+        }
+    }
+
+    /* The region check of the dictionary, which doesn't copy the word */
+    private interface Lookup {
+        boolean check(CharSequence word, int from, int to);
+    }
+
+    private final Dictionary dictionary;
+    private final Lookup lookup;
+    private final int numSuggestions;
+    private final int chunkSize;
+
+    /**
+     * Creates a checker that finds the given number of suggestions for every misspelled word
+     *
+     * @param dictionary     the dictionary; it is read from several threads at once, so it must not
+     *                       be changed while a document is checked (unless it is a ConcurrentCompactPrefixTree)
+     * @param numSuggestions the number of suggestions for each misspelled word, 0 for none
+     */
+    public DocumentChecker(Dictionary dictionary, int numSuggestions) {
+        this(dictionary, numSuggestions, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a checker with the given chunk size
+     *
+     * @param dictionary     the dictionary, see DocumentChecker(Dictionary, int)
+     * @param numSuggestions the number of suggestions for each misspelled word, 0 for none
+     * @param chunkSize      the number of bytes mapped and checked as one piece of work
+     */
+    public DocumentChecker(Dictionary dictionary, int numSuggestions, int chunkSize) {
+        if (numSuggestions < 0 || chunkSize < 1) {
+            throw new IllegalArgumentException("numSuggestions must be >= 0 and chunkSize >= 1");
+        }
+        this.dictionary = dictionary;
+        this.numSuggestions = numSuggestions;
+        this.chunkSize = chunkSize;
+        if (dictionary instanceof CompactPrefixTree) {
+            lookup = ((CompactPrefixTree) dictionary)::check;
+        } else if (dictionary instanceof PackedTrie) {
+            lookup = ((PackedTrie) dictionary)::check;
+        } else if (dictionary instanceof ConcurrentCompactPrefixTree) {
+            lookup = ((ConcurrentCompactPrefixTree) dictionary)::check;
+        } else {
+            lookup = (word, from, to) -> dictionary.check(word.subSequence(from, to).toString());
+        }
+    }
+
+    /**
+     * Checks a document and prints its misspelled words, one "offset TAB word TAB suggestions" line each,
+     * then the number of words and the speed.
+     * Usage: DocumentChecker wordsFile document [numSuggestions]
+     *
+     * @param args the command line arguments
+     * @throws IOException if a file can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: DocumentChecker wordsFile document [numSuggestions]");
+            return;
+        }
+        int numSuggestions = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        DocumentChecker checker = new DocumentChecker(new CompactPrefixTree(args[0]).freeze(), numSuggestions);
+        StringBuilder line = new StringBuilder();
+        Summary summary = checker.check(Paths.get(args[1]), misspelling -> {
+            line.setLength(0);
+            line.append(misspelling.getOffset()).append('\t').append(misspelling.getWord()).append('\t')
+                    .append(String.join(" ", misspelling.getSuggestions()));
+            System.out.println(line);
+        });
+        System.err.println(summary);
+    }
+
+    /**
+     * Returns the misspelled words of a file, in the order they appear. The file is mapped and
+     * split into chunks right away, and the chunks are checked as the stream is consumed;
+     * a parallel stream checks several chunks at once.
+     *
+     * @param file the document, UTF-8 or ASCII text
+     * @return the stream of misspelled words
+     * @throws IOException if the file can't be mapped
+     */
+    public Stream<Misspelling> misspellings(Path file) throws IOException {
+        return chunks(file).stream().flatMap(chunk -> check(chunk).misspellings.stream());
+    }
+
+    /**
+     * Checks a file with all cores and gives its misspelled words to action, in the order they appear
+     *
+     * @param file   the document, UTF-8 or ASCII text
+     * @param action receives the misspelled words, from one thread at a time
+     * @return the number of bytes, words and misspelled words, and the time it took
+     * @throws IOException if the file can't be mapped
+     */
+    public Summary check(Path file, Consumer<? super Misspelling> action) throws IOException {
+        long start = System.nanoTime();
+        List<Chunk> chunks = chunks(file);
+        long[] counts = new long[3]; // bytes, words, misspelled words
+        chunks.parallelStream().map(this::check).forEachOrdered(result -> {
+            counts[0] += result.bytes;
+            counts[1] += result.words;
+            counts[2] += result.misspellings.size();
+            result.misspellings.forEach(action);
+        });
+        return new Summary(counts[0], counts[1], counts[2], System.nanoTime() - start);
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /* Maps the file in chunks of about chunkSize bytes that end between words */
+    private List<Chunk> chunks(Path file) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer probe = ByteBuffer.allocate(64);
+            long start = 0;
+            while (start < size) {
+                long end = Math.min(size, start + chunkSize);
+                while (end < size && isWordByte(channel, probe, end - 1, size)
+                        && isWordByte(channel, probe, end, size)) {
+                    end++; // don't split a word
+                }
+                chunks.add(new Chunk(start, channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            }
+        }
+        return chunks; // the mappings stay valid after the channel is closed
+    }
+
+    /* Reads the byte at position and its neighbours (probe is reused) and tells if it is part of a word */
+    private static boolean isWordByte(FileChannel channel, ByteBuffer probe, long position, long size)
+            throws IOException {
+        long from = Math.max(0, position - 1);
+        probe.clear().limit((int) (Math.min(size, position + 2) - from));
+        while (probe.hasRemaining() && channel.read(probe, from + probe.position()) > 0) {
+            // reads all of it
+        }
+        int at = (int) (position - from);
+        byte b = probe.get(at);
+        if (WORD_BYTE[b & 0xFF]) {
+            return true;
+        }
+        return isJoiner(b) && at > 0 && at + 1 < probe.position()
+                && WORD_BYTE[probe.get(at - 1) & 0xFF] && WORD_BYTE[probe.get(at + 1) & 0xFF];
+    }
+
+    /* Apostrophes and hyphens join letters into one word */
+    private static boolean isJoiner(int c) {
+        return c == '\'' || c == '-';
+    }
+
+    /* Tokenizes and checks one chunk */
+    private ChunkResult check(Chunk chunk) {
+        ByteBuffer buffer = chunk.buffer;
+        ByteChars chars = new ByteChars(buffer);
+        ChunkResult result = new ChunkResult(buffer.limit());
+        int n = buffer.limit();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !WORD_BYTE[buffer.get(i) & 0xFF]) {
+                i++;
+            }
+            int start = i;
+            boolean ascii = true;
+            boolean joined = false;
+            while (i < n) {
+                byte b = buffer.get(i);
+                if (WORD_BYTE[b & 0xFF]) {
+                    ascii &= b >= 0;
+                } else if (isJoiner(b) && i + 1 < n && WORD_BYTE[buffer.get(i + 1) & 0xFF]) {
+                    joined = true; // the byte before is a letter of this word
+                } else {
+                    break;
+                }
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+            result.words++;
+            String word = null;
+            boolean correct;
+            if (ascii) {
+                correct = lookup.check(chars, start, i) || joined && checkParts(chars, start, i);
+            } else {
+                word = decode(buffer, start, i);
+                correct = dictionary.check(word) || joined && checkParts(word, 0, word.length());
+            }
+            if (!correct) {
+                if (word == null) {
+                    word = decode(buffer, start, i);
+                }
+                String[] suggestions = numSuggestions == 0 ? new String[0]
+                        : dictionary.suggest(word, numSuggestions);
+                result.misspellings.add(new Misspelling(chunk.offset + start, word, suggestions));
+            }
+        }
+        return result;
+    }
+
+    /* Whether every part of the word between apostrophes and hyphens is in the dictionary */
+    private boolean checkParts(CharSequence word, int from, int to) {
+        int start = from;
+        for (int j = from; j <= to; j++) {
+            if (j == to || isJoiner(word.charAt(j))) {
+                if (!lookup.check(word, start, j)) {
+                    return false;
+                }
+                start = j + 1;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /* A mapped piece of the file */
+    private static final class Chunk {
+        final long offset; // of the first byte in the file
+        final ByteBuffer buffer;
+
+        Chunk(long offset, ByteBuffer buffer) {
+            this.offset = offset;
+            this.buffer = buffer;
+        }
+    }
+
+    /* What was found in one chunk */
+    private static final class ChunkResult {
+        final long bytes;
+        long words;
+        final List<Misspelling> misspellings = new ArrayList<>();
+
+        ChunkResult(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /* The bytes of a buffer as chars (ASCII only), for the region check of the dictionary */
+    private static final class ByteChars implements CharSequence {
+        private final ByteBuffer buffer;
+
+        ByteChars(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int length() {
+            return buffer.limit();
+        }
+
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return decode(buffer, start, end);
+        }
+
+        public String toString() {
+            return decode(buffer, 0, buffer.limit());
+        }
+    }
+
+    /**
+     * A misspelled word of a document
+     */
+    public static final class Misspelling {
+        private final long offset;
+        private final String word;
+        private final String[] suggestions;
+
+        Misspelling(long offset, String word, String[] suggestions) {
+            this.offset = offset;
+            this.word = word;
+            this.suggestions = suggestions;
+        }
+
+        /**
+         * Byte offset of the word in the file
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * The word as it appears in the document
+         */
+        public String getWord() {
+            return word;
+        }
+
+        /**
+         * The suggestions for the word, closest first
+         */
+        public String[] getSuggestions() {
+            return suggestions.clone();
+        }
+
+        public String toString() {
+            return offset + " " + word + " " + String.join(" ", suggestions);
+        }
+    }
+
+    /**
+     * The totals of one check
+     */
+    public static final class Summary {
+        private final long bytes;
+        private final long words;
+        private final long misspellings;
+        private final long nanos;
+
+        Summary(long bytes, long words, long misspellings, long nanos) {
+            this.bytes = bytes;
+            this.words = words;
+            this.misspellings = misspellings;
+            this.nanos = nanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getWords() {
+            return words;
+        }
+
+        public long getMisspellings() {
+            return misspellings;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Speed of the check in megabytes (10^6 bytes) per second
+         */
+        public double getMegabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1e3 / nanos;
+        }
+
+        public String toString() {
+            return String.format("%d bytes, %d words, %d misspelled, %.2f s, %.1f MB/s", bytes, words, misspellings,
+                    nanos / 1e9, getMegabytesPerSecond());
+        }
+    }
+}
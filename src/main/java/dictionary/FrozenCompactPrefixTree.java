@@ -0,0 +1,86 @@
+package dictionary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An immutable, array-packed snapshot of a CompactPrefixTree, created with
+ * CompactPrefixTree.freeze(). Meant for dictionaries that are built once and then only read.
+ * All labels are kept in one char array and the structure in flat int arrays
+ * (see PackedTrie for the layout).
+ */
+public final class FrozenCompactPrefixTree extends PackedTrie {
+
+    private final char[] labels; // labels of all nodes, one after another
+    private final int[] labelStart; // index of the first char of each node's label in labels
+    private final int[] firstChild; // index of the first child of each node
+    private final boolean[] isWord; // word flag of each node
+    private final int numWords; // number of nodes with the word flag set
+
+    FrozenCompactPrefixTree(char[] labels, int[] labelStart, int[] firstChild, boolean[] isWord,
+                            CaseFolding folding) {
+        super(folding);
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.firstChild = firstChild;
+        this.isWord = isWord;
+        int count = 0;
+        for (int i = 0; i < isWord.length; i++) {
+            if (isWord[i]) {
+                count++;
+            }
+        }
+        this.numWords = count;
+    }
+
+    /**
+     * Returns the number of nodes in the snapshot
+     *
+     * @return the number of nodes, including the root
+     */
+    public int numNodes() {
+        return isWord.length;
+    }
+
+    /**
+     * Returns the number of words in the snapshot
+     *
+     * @return the number of words
+     */
+    public int numWords() {
+        return numWords;
+    }
+
+    /**
+     * Writes the snapshot to a binary file that MappedCompactPrefixTree.load can map
+     * back into memory without rebuilding the tree.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        MappedCompactPrefixTree.write(this, path);
+    }
+
+    // ---------- Storage of the packed layout ---------------
+
+    int labelStart(int node) {
+        return labelStart[node];
+    }
+
+    int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    char labelChar(int index) {
+        return labels[index];
+    }
+
+    boolean isWord(int node) {
+        return isWord[node];
+    }
+
+    String label(int node) {
+        return new String(labels, labelStart[node], labelStart[node + 1] - labelStart[node]);
+    }
+}
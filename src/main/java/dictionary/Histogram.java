@@ -0,0 +1,99 @@
+package dictionary;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative long values (latencies in nanoseconds, node counts), with a
+ * fixed relative precision in the style of HdrHistogram: values below 64 get a bucket each,
+ * larger values share a bucket with values within about 3% of them (32 buckets for every
+ * power of two). Recording is lock-free and allocation-free, and safe from several threads.
+ */
+final class Histogram {
+    private static final int SUB_BITS = 6;
+    private static final int LINEAR = 1 << SUB_BITS; // values below this get one bucket each
+    private static final int HALF = LINEAR / 2; // buckets per power of two above LINEAR
+    private static final int SIZE = LINEAR + (64 - SUB_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /* Records one value; negative values are recorded as 0 */
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /* The value at the given percentile (0 to 100): the largest value in its bucket, at most max() */
+    long percentile(double percentile) {
+        long[] snapshot = new long[SIZE];
+        long total = 0;
+        for (int i = 0; i < SIZE; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < SIZE; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestEquivalent(i), max());
+            }
+        }
+        return max();
+    }
+
+    void reset() {
+        for (int i = 0; i < SIZE; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /* Bucket of a value */
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1); // keeps the top SUB_BITS - 1 bits
+        return LINEAR + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /* Largest value in a bucket */
+    static long highestEquivalent(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / HALF + 1;
+        long sub = (index - LINEAR) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
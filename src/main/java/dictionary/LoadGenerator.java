@@ -0,0 +1,226 @@
+package dictionary;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load generator for DictionaryServer. Every connection sends a mix of requests for words
+ * from a file (70% CHECK, half of them with a typo, 20% PREFIX, 10% SUGGEST of a misspelled word),
+ * keeping up to pipeline requests in flight, and the latency of every request is measured
+ * from when it was written until its response was read.
+ * Usage: LoadGenerator wordsFile [port] [connections] [seconds] [pipeline]
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs the load against a server on the loopback address and prints the report
+     *
+     * @param args the command line arguments
+     * @throws Exception if the words can't be read or the server can't be reached
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: LoadGenerator wordsFile [port] [connections] [seconds] [pipeline]");
+            return;
+        }
+        List<String> words = Files.readAllLines(Paths.get(args[0]));
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DictionaryServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        int pipeline = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+        Report report = run(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), words, connections,
+                (long) (seconds * 1e9), pipeline);
+        System.out.println(report);
+    }
+
+    /**
+     * Sends requests over the given number of connections for the given time
+     *
+     * @param address       the address of the server
+     * @param lines         the words to make requests from, one per line; blank lines are skipped and the others stripped
+     * @param connections   the number of connections, each with a virtual thread for writing and one for reading
+     * @param durationNanos how long to send requests for
+     * @param pipeline      the largest number of requests in flight on a connection
+     * @return the throughput and latencies
+     * @throws IllegalArgumentException if there are no words
+     * @throws Exception if a connection fails
+     */
+    public static Report run(InetSocketAddress address, List<String> lines, int connections, long durationNanos,
+                             int pipeline) throws Exception {
+        List<String> words = lines.stream().map(String::strip).filter(word -> !word.isEmpty()).toList();
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("No words to make requests from");
+        }
+        Histogram latencies = new Histogram();
+        AtomicLong errors = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            long seed = i;
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    connection(address, words, start + durationNanos, pipeline, seed, latencies, errors);
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return new Report(latencies, errors.get(), System.nanoTime() - start, connections, pipeline);
+    }
+
+    /* Drives one connection: this thread writes requests, a second one reads the responses */
+    private static void connection(InetSocketAddress address, List<String> words, long deadline, int pipeline,
+                                   long seed, Histogram latencies, AtomicLong errors) throws Exception {
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            socket.setTcpNoDelay(true);
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Semaphore inFlight = new Semaphore(pipeline);
+            AtomicLongArray sent = new AtomicLongArray(pipeline); // send time of request i in slot i % pipeline
+
+            Thread reader = Thread.ofVirtual().start(() -> {
+                try {
+                    String response;
+                    for (long i = 0; (response = in.readLine()) != null; i++) {
+                        latencies.record(System.nanoTime() - sent.get((int) (i % pipeline)));
+                        if (response.startsWith("ERR")) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }
+                } catch (IOException e) {
+                    // the connection was closed
+                }
+            });
+
+            Random random = new Random(seed);
+            for (long i = 0; System.nanoTime() < deadline; i++) {
+                inFlight.acquire();
+                out.write(request(words, random));
+                out.write('\n');
+                // timed when it is sent, not when it is buffered; before the flush, since the
+                // response can be read before flush returns
+                sent.set((int) (i % pipeline), System.nanoTime());
+                out.flush();
+            }
+            out.write("QUIT\n"); // the server answers everything before it and closes the connection
+            out.flush();
+            reader.join();
+        }
+    }
+
+    /* A random request */
+    private static String request(List<String> words, Random random) {
+        String word = words.get(random.nextInt(words.size()));
+        int kind = random.nextInt(10);
+        if (kind < 7) {
+            return "CHECK " + (kind < 4 ? word : typo(word, random));
+        }
+        if (kind < 9) {
+            return "PREFIX " + word.substring(0, 1 + random.nextInt(word.length()));
+        }
+        return "SUGGEST 5 " + typo(word, random);
+    }
+
+    /* The word with one letter replaced */
+    private static String typo(String word, Random random) {
+        char[] chars = word.toCharArray();
+        chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    /**
+     * The results of a run; latencies are in nanoseconds
+     */
+    public static final class Report {
+        private final long requests;
+        private final long errors;
+        private final long elapsedNanos;
+        private final double throughput;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+        private final int connections;
+        private final int pipeline;
+
+        private Report(Histogram latencies, long errors, long elapsedNanos, int connections, int pipeline) {
+            this.requests = latencies.count();
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.throughput = requests * 1e9 / elapsedNanos;
+            this.p50Nanos = latencies.percentile(50);
+            this.p99Nanos = latencies.percentile(99);
+            this.p999Nanos = latencies.percentile(99.9);
+            this.maxNanos = latencies.max();
+            this.connections = connections;
+            this.pipeline = pipeline;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Requests answered per second
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public String toString() {
+            return String.format("%d connections, pipeline %d: %d requests in %.1f s, %.0f requests/s, %d errors%n"
+                            + "latency p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", connections, pipeline,
+                    requests, elapsedNanos / 1e9, throughput, errors, p50Nanos / 1e3, p99Nanos / 1e3,
+                    p999Nanos / 1e3, maxNanos / 1e3);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package dictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A read-only dictionary that answers queries straight from a memory-mapped file
+ * written by CompactPrefixTree.save or FrozenCompactPrefixTree.save.
+ * Loading maps the file and reads the header; no nodes or labels are copied onto the heap.
+ *
+ * File format (version 1, little-endian), the PackedTrie layout written out section by section:
+ * <pre>
+ *  header (32 bytes)
+ *    int  magic          'CPTD'
+ *    int  version        1
+ *    int  numNodes       n
+ *    int  numWords
+ *    int  labelLength    total number of label chars
+ *    int  checksum       CRC32 of everything after the header
+ *    int  folding        case folding of the words: 0 lowercase, 1 none, else a language (see CaseFolding)
+ *    int  reserved       0
+ *  int[n + 1]            labelStart
+ *  int[n + 1]            firstChild
+ *  int[(n + 31) / 32]    word flags, one bit per node (bit i % 32 of int i / 32)
+ *  char[labelLength]     labels (UTF-16)
+ * </pre>
+ */
+public final class MappedCompactPrefixTree extends PackedTrie {
+    static final int MAGIC = 0x43505444; // "CPTD"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private final ByteBuffer buffer; // the whole file
+    private final int numNodes;
+    private final int numWords;
+    private final int labelStartOffset; // byte offsets of the sections
+    private final int firstChildOffset;
+    private final int wordBitsOffset;
+    private final int labelsOffset;
+
+    private MappedCompactPrefixTree(ByteBuffer buffer, int numNodes, int numWords, CaseFolding folding) {
+        super(folding);
+        this.buffer = buffer;
+        this.numNodes = numNodes;
+        this.numWords = numWords;
+        labelStartOffset = HEADER_SIZE;
+        firstChildOffset = labelStartOffset + 4 * (numNodes + 1);
+        wordBitsOffset = firstChildOffset + 4 * (numNodes + 1);
+        labelsOffset = wordBitsOffset + 4 * ((numNodes + 31) / 32);
+    }
+
+    /**
+     * Maps a dictionary file into memory and verifies its checksum.
+     *
+     * @param path the file written by save
+     * @return the dictionary backed by the mapped file
+     * @throws IOException if the file can't be read or is not a valid dictionary file
+     */
+    public static MappedCompactPrefixTree load(Path path) throws IOException {
+        return load(path, true);
+    }
+
+    /**
+     * Maps a dictionary file into memory.
+     *
+     * @param path   the file written by save
+     * @param verify whether to verify the checksum; this reads the whole file,
+     *               without it only the pages touched by queries are read
+     * @return the dictionary backed by the mapped file
+     * @throws IOException if the file can't be read or is not a valid dictionary file
+     */
+    public static MappedCompactPrefixTree load(Path path, boolean verify) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large for a dictionary file");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return wrap(buffer.order(ByteOrder.LITTLE_ENDIAN), verify, path.toString());
+    }
+
+    /* Reads the header of a buffer holding a dictionary file and checks it against the buffer */
+    static MappedCompactPrefixTree wrap(ByteBuffer buffer, boolean verify, String name) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(name + " is not a dictionary file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(name + " has unsupported version " + buffer.getInt(4));
+        }
+        int numNodes = buffer.getInt(8);
+        int numWords = buffer.getInt(12);
+        int labelLength = buffer.getInt(16);
+        long size = size(numNodes, labelLength);
+        if (numNodes < 0 || labelLength < 0 || size != buffer.capacity()) {
+            throw new IOException(name + " is truncated or corrupt");
+        }
+        if (verify && checksum(buffer) != buffer.getInt(20)) {
+            throw new IOException(name + " failed checksum verification");
+        }
+        CaseFolding folding = CaseFolding.fromCode(buffer.getInt(24));
+        if (folding == null) {
+            throw new IOException(name + " has unknown case folding " + buffer.getInt(24));
+        }
+        return new MappedCompactPrefixTree(buffer, numNodes, numWords, folding);
+    }
+
+    /**
+     * Writes a packed tree to a file in the format read by load
+     *
+     * @param trie the tree to write
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    static void write(PackedTrie trie, Path path) throws IOException {
+        ByteBuffer buffer = toBuffer(trie, ByteBuffer.allocate((int) size(trie.numNodes(), trie.labelStart(trie.numNodes()))));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /* Fills buffer (exactly size() bytes) with the file representation of trie and rewinds it */
+    static ByteBuffer toBuffer(PackedTrie trie, ByteBuffer buffer) {
+        int numNodes = trie.numNodes();
+        int labelLength = trie.labelStart(numNodes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(numNodes).putInt(trie.numWords())
+                .putInt(labelLength).putInt(0).putInt(trie.getFolding().code()).putInt(0);
+        for (int i = 0; i <= numNodes; i++) {
+            buffer.putInt(trie.labelStart(i));
+        }
+        for (int i = 0; i <= numNodes; i++) {
+            buffer.putInt(trie.firstChild(i));
+        }
+        for (int i = 0; i < numNodes; i += 32) {
+            int bits = 0;
+            for (int j = 0; j < 32 && i + j < numNodes; j++) {
+                if (trie.isWord(i + j)) {
+                    bits |= 1 << j;
+                }
+            }
+            buffer.putInt(bits);
+        }
+        for (int i = 0; i < labelLength; i++) {
+            buffer.putChar(trie.labelChar(i));
+        }
+        buffer.putInt(20, checksum(buffer));
+        buffer.rewind();
+        return buffer;
+    }
+
+    /* Size in bytes of the file for a tree with the given number of nodes and label chars */
+    static long size(int numNodes, int labelLength) {
+        return HEADER_SIZE + 8L * (numNodes + 1) + 4L * ((numNodes + 31) / 32) + 2L * labelLength;
+    }
+
+    /* CRC32 of everything after the header */
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(HEADER_SIZE).limit(payload.capacity());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the number of nodes in the file
+     *
+     * @return the number of nodes, including the root
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Returns the number of words in the file
+     *
+     * @return the number of words
+     */
+    public int numWords() {
+        return numWords;
+    }
+
+    // ---------- Storage of the packed layout ---------------
+
+    int labelStart(int node) {
+        return buffer.getInt(labelStartOffset + 4 * node);
+    }
+
+    int firstChild(int node) {
+        return buffer.getInt(firstChildOffset + 4 * node);
+    }
+
+    char labelChar(int index) {
+        return buffer.getChar(labelsOffset + 2 * index);
+    }
+
+    boolean isWord(int node) {
+        return (buffer.getInt(wordBitsOffset + 4 * (node >>> 5)) & (1 << node)) != 0;
+    }
+}
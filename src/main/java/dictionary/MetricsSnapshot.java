@@ -0,0 +1,267 @@
+package dictionary;
+
+import dictionary.CompactPrefixTree.Node;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Metrics of a CompactPrefixTree at one point in time, see TreeMetrics.
+ * Latencies are in nanoseconds.
+ */
+public final class MetricsSnapshot {
+    private final OperationStats add;
+    private final OperationStats check;
+    private final OperationStats checkPrefix;
+    private final OperationStats suggest;
+    private final TreeStats tree;
+
+    MetricsSnapshot(OperationStats add, OperationStats check, OperationStats checkPrefix,
+                    OperationStats suggest, TreeStats tree) {
+        this.add = add;
+        this.check = check;
+        this.checkPrefix = checkPrefix;
+        this.suggest = suggest;
+        this.tree = tree;
+    }
+
+    public OperationStats getAdd() {
+        return add;
+    }
+
+    public OperationStats getCheck() {
+        return check;
+    }
+
+    public OperationStats getCheckPrefix() {
+        return checkPrefix;
+    }
+
+    public OperationStats getSuggest() {
+        return suggest;
+    }
+
+    public TreeStats getTree() {
+        return tree;
+    }
+
+    public String toString() {
+        return "add:         " + add + "\n"
+                + "check:       " + check + "\n"
+                + "checkPrefix: " + checkPrefix + "\n"
+                + "suggest:     " + suggest + "\n"
+                + "tree:        " + tree;
+    }
+
+    /**
+     * Calls of one operation: how many, how long they took and how many nodes they visited
+     */
+    public static final class OperationStats {
+        private final long count;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+        private final double meanNodesVisited;
+        private final long p99NodesVisited;
+        private final long maxNodesVisited;
+
+        OperationStats(long count, double meanNanos, long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos,
+                       long maxNanos, double meanNodesVisited, long p99NodesVisited, long maxNodesVisited) {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+            this.meanNodesVisited = meanNodesVisited;
+            this.p99NodesVisited = p99NodesVisited;
+            this.maxNodesVisited = maxNodesVisited;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNodesVisited() {
+            return meanNodesVisited;
+        }
+
+        public long getP99NodesVisited() {
+            return p99NodesVisited;
+        }
+
+        public long getMaxNodesVisited() {
+            return maxNodesVisited;
+        }
+
+        public String toString() {
+            return String.format("count=%d mean=%.0fns p50=%dns p90=%dns p99=%dns p99.9=%dns max=%dns"
+                            + " nodes visited mean=%.1f p99=%d max=%d", count, meanNanos, p50Nanos, p90Nanos,
+                    p99Nanos, p999Nanos, maxNanos, meanNodesVisited, p99NodesVisited, maxNodesVisited);
+        }
+    }
+
+    /**
+     * The shape and size of a tree
+     */
+    public static final class TreeStats {
+        // estimated sizes in bytes, for a 64-bit JVM with compressed references
+        private static final int NODE_BYTES = 56; // header, 5 fields, 2 longs, a char and a boolean, padded
+        private static final int STRING_BYTES = 24;
+        private static final int ARRAY_HEADER_BYTES = 16;
+
+        private final long nodeCount;
+        private final long wordCount;
+        private final long totalLabelChars;
+        private final long estimatedBytes;
+        private final long[] depthCounts;
+        private final long[] fanOutCounts;
+
+        private TreeStats(long nodeCount, long wordCount, long totalLabelChars, long estimatedBytes,
+                          long[] depthCounts, long[] fanOutCounts) {
+            this.nodeCount = nodeCount;
+            this.wordCount = wordCount;
+            this.totalLabelChars = totalLabelChars;
+            this.estimatedBytes = estimatedBytes;
+            this.depthCounts = depthCounts;
+            this.fanOutCounts = fanOutCounts;
+        }
+
+        /* Walks the tree with the given root (may be null) */
+        static TreeStats of(Node root) {
+            long nodes = 0;
+            long words = 0;
+            long chars = 0;
+            long bytes = 0;
+            long[] depths = new long[16];
+            long[] fanOuts = new long[27];
+            ArrayDeque<Node> stack = new ArrayDeque<>();
+            ArrayDeque<Integer> stackDepths = new ArrayDeque<>();
+            if (root != null) {
+                stack.push(root);
+                stackDepths.push(0);
+            }
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int depth = stackDepths.pop();
+                nodes++;
+                if (node.isWord) {
+                    words++;
+                }
+                chars += node.prefix.length();
+                bytes += NODE_BYTES + STRING_BYTES + align(ARRAY_HEADER_BYTES + labelBytes(node.prefix));
+                if (node.keys != null) {
+                    bytes += align(ARRAY_HEADER_BYTES + 2L * node.keys.length);
+                }
+                if (node.children != null) {
+                    bytes += align(ARRAY_HEADER_BYTES + 4L * node.children.length);
+                }
+                if (depth >= depths.length) {
+                    depths = Arrays.copyOf(depths, depth * 2);
+                }
+                depths[depth]++;
+                if (node.numChildren >= fanOuts.length) {
+                    fanOuts = Arrays.copyOf(fanOuts, node.numChildren + 1);
+                }
+                fanOuts[node.numChildren]++;
+                for (int i = 0; i < node.numSlots(); i++) {
+                    if (node.getSlot(i) != null) {
+                        stack.push(node.getSlot(i));
+                        stackDepths.push(depth + 1);
+                    }
+                }
+            }
+            int maxDepth = depths.length;
+            while (maxDepth > 0 && depths[maxDepth - 1] == 0) {
+                maxDepth--;
+            }
+            int maxFanOut = fanOuts.length;
+            while (maxFanOut > 0 && fanOuts[maxFanOut - 1] == 0) {
+                maxFanOut--;
+            }
+            return new TreeStats(nodes, words, chars, bytes, Arrays.copyOf(depths, maxDepth),
+                    Arrays.copyOf(fanOuts, maxFanOut));
+        }
+
+        public long getNodeCount() {
+            return nodeCount;
+        }
+
+        public long getWordCount() {
+            return wordCount;
+        }
+
+        public long getTotalLabelChars() {
+            return totalLabelChars;
+        }
+
+        /**
+         * Estimated heap used by the nodes, their labels and child arrays
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * Depth distribution: element i is the number of nodes i levels below the root
+         */
+        public long[] getDepthCounts() {
+            return depthCounts.clone();
+        }
+
+        /**
+         * Fan-out distribution: element i is the number of nodes with i children
+         */
+        public long[] getFanOutCounts() {
+            return fanOutCounts.clone();
+        }
+
+        public String toString() {
+            return "nodes=" + nodeCount + " words=" + wordCount + " label chars=" + totalLabelChars
+                    + " estimated bytes=" + estimatedBytes + " depths=" + Arrays.toString(depthCounts)
+                    + " fan-out=" + Arrays.toString(fanOutCounts);
+        }
+
+        /* Bytes of the array backing a String: one byte per char unless a char doesn't fit (compact strings) */
+        private static long labelBytes(String label) {
+            for (int i = 0; i < label.length(); i++) {
+                if (label.charAt(i) > 0xFF) {
+                    return 2L * label.length();
+                }
+            }
+            return label.length();
+        }
+
+        private static long align(long bytes) {
+            return (bytes + 7) & ~7L;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package dictionary;
+
+import dictionary.CompactPrefixTree.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A read-only dictionary that shares suffixes as well as prefixes, created with
+ * CompactPrefixTree.minimize(). It is the minimal acyclic automaton (DAWG) of the words,
+ * stored with labels on the nodes like the other trees in this package.
+ *
+ * Subtrees that hold the same word endings are stored once: for example the endings
+ * "", "ed", "ing" and "s" below "walk" and below "talk" share their nodes. A node can be
+ * reached on more than one path and child lists are shared (see PackedTrie for the layout),
+ * but every query, words() and toString() give the same results as the tree it was created from.
+ */
+public final class MinimizedCompactPrefixTree extends PackedTrie {
+
+    private final char[] labels; // labels of all nodes, one after another
+    private final int[] labelStart; // index of the first char of each node's label in labels
+    private final int[] firstChild; // index in children of the first child of each node
+    private final int[] childEnd; // index in children after the last child of each node
+    private final int[] children; // the child lists, shared by nodes that end in the same state
+    private final boolean[] isWord; // word flag of each node
+    private final int numWords; // number of words, not nodes: a node can end many words
+
+    private MinimizedCompactPrefixTree(char[] labels, int[] labelStart, int[] firstChild, int[] childEnd,
+                                       int[] children, boolean[] isWord, int numWords, CaseFolding folding) {
+        super(folding);
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.firstChild = firstChild;
+        this.childEnd = childEnd;
+        this.children = children;
+        this.isWord = isWord;
+        this.numWords = numWords;
+    }
+
+    /**
+     * Minimizes the tree with the given root.
+     * First the tree is split into one state per char and equal states are merged bottom-up:
+     * a state is looked up in a register by its word flag and its outgoing (char, state) pairs,
+     * which are already merged, so each distinct state is created once (hash-consing).
+     * Then chains of states with a single child and no word are joined back into labels.
+     *
+     * @param root    the root of the tree, may be null
+     * @param folding the case folding of the tree
+     * @return the minimized dictionary
+     */
+    static MinimizedCompactPrefixTree of(Node root, CaseFolding folding) {
+        if (root == null) {
+            return new MinimizedCompactPrefixTree(new char[0], new int[1], new int[0], new int[0],
+                    new int[0], new boolean[0], 0, folding);
+        }
+        Register register = new Register();
+        int start = register.end(root);
+        return compact(register.states, start, folding);
+    }
+
+    /**
+     * Returns the number of nodes, counting a shared node once
+     *
+     * @return the number of nodes, including the root
+     */
+    public int numNodes() {
+        return isWord.length;
+    }
+
+    /**
+     * Returns the number of words in the dictionary
+     *
+     * @return the number of words
+     */
+    public int numWords() {
+        return numWords;
+    }
+
+    /**
+     * Estimates the heap used by the arrays of this dictionary
+     *
+     * @return the estimated number of bytes
+     */
+    public long estimatedBytes() {
+        return 16L * 6 + 2L * labels.length + 4L * (labelStart.length + firstChild.length + childEnd.length
+                + children.length) + isWord.length;
+    }
+
+    // ---------- Storage of the packed layout ---------------
+
+    int labelStart(int node) {
+        return labelStart[node];
+    }
+
+    int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    int childEnd(int node) {
+        return childEnd[node];
+    }
+
+    int childAt(int index) {
+        return children[index];
+    }
+
+    char labelChar(int index) {
+        return labels[index];
+    }
+
+    boolean isWord(int node) {
+        return isWord[node];
+    }
+
+    String label(int node) {
+        return new String(labels, labelStart[node], labelStart[node + 1] - labelStart[node]);
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /**
+     * Joins the states reachable from start into labeled nodes. A node is an edge out of a state
+     * followed by as many states with no word and a single edge as possible; its children are the
+     * edges of the state where it ends. Nodes with the same label and end state are created once,
+     * and so is the child list of each state.
+     *
+     * @param states  the states, each state's targets come before it
+     * @param start   the state of the root
+     * @param folding the case folding of the tree
+     * @return the dictionary
+     */
+    private static MinimizedCompactPrefixTree compact(ArrayList<State> states, int start, CaseFolding folding) {
+        HashMap<String, Integer> nodeIds = new HashMap<>(); // "end state:label" -> node
+        ArrayList<String> nodeLabels = new ArrayList<>();
+        int[] nodeEnds = new int[64]; // the state each node ends in
+        int[] listStart = new int[states.size()]; // child list of each state, -1 until created
+        int[] listEnd = new int[states.size()];
+        Arrays.fill(listStart, -1);
+        int[] children = new int[64];
+        int numChildren = 0;
+
+        nodeLabels.add(""); // the root
+        nodeEnds[0] = start;
+        StringBuilder label = new StringBuilder();
+        for (int node = 0; node < nodeLabels.size(); node++) { // new nodes are appended while going
+            State end = states.get(nodeEnds[node]);
+            if (listStart[nodeEnds[node]] >= 0) {
+                continue;
+            }
+            listStart[nodeEnds[node]] = numChildren;
+            for (int i = 0; i < end.chars.length; i++) {
+                label.setLength(0);
+                label.append(end.chars[i]);
+                int target = end.targets[i];
+                while (!states.get(target).isWord && states.get(target).chars.length == 1) {
+                    label.append(states.get(target).chars[0]);
+                    target = states.get(target).targets[0];
+                }
+                String key = target + ":" + label;
+                Integer child = nodeIds.get(key);
+                if (child == null) {
+                    child = nodeLabels.size();
+                    nodeIds.put(key, child);
+                    nodeLabels.add(label.toString());
+                    if (child == nodeEnds.length) {
+                        nodeEnds = Arrays.copyOf(nodeEnds, child * 2);
+                    }
+                    nodeEnds[child] = target;
+                }
+                if (numChildren == children.length) {
+                    children = Arrays.copyOf(children, numChildren * 2);
+                }
+                children[numChildren++] = child;
+            }
+            listEnd[nodeEnds[node]] = numChildren;
+        }
+
+        int numNodes = nodeLabels.size();
+        int labelLength = 0;
+        for (String nodeLabel : nodeLabels) {
+            labelLength += nodeLabel.length();
+        }
+        char[] labels = new char[labelLength];
+        int[] labelStart = new int[numNodes + 1];
+        int[] firstChild = new int[numNodes];
+        int[] childEnd = new int[numNodes];
+        boolean[] isWord = new boolean[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            String nodeLabel = nodeLabels.get(i);
+            nodeLabel.getChars(0, nodeLabel.length(), labels, labelStart[i]);
+            labelStart[i + 1] = labelStart[i] + nodeLabel.length();
+            firstChild[i] = listStart[nodeEnds[i]];
+            childEnd[i] = listEnd[nodeEnds[i]];
+            isWord[i] = states.get(nodeEnds[i]).isWord;
+        }
+        int[] wordCounts = new int[states.size()]; // words that end below each state
+        for (int i = 0; i < states.size(); i++) {
+            State state = states.get(i);
+            wordCounts[i] = state.isWord ? 1 : 0;
+            for (int target : state.targets) {
+                wordCounts[i] += wordCounts[target];
+            }
+        }
+        return new MinimizedCompactPrefixTree(labels, labelStart, firstChild, childEnd,
+                Arrays.copyOf(children, numChildren), isWord, wordCounts[start], folding);
+    }
+
+    /* The states of the minimal automaton, created bottom-up from a compact prefix tree */
+    private static final class Register {
+        final HashMap<State, Integer> ids = new HashMap<>();
+        final ArrayList<State> states = new ArrayList<>();
+
+        /* Returns the state after the whole label of node */
+        int end(Node node) {
+            char[] chars = new char[node.numChildren];
+            int[] targets = new int[node.numChildren];
+            int n = 0;
+            for (int i = 0; i < node.numSlots(); i++) {
+                Node child = node.getSlot(i);
+                if (child != null) {
+                    chars[n] = child.prefix.charAt(0);
+                    targets[n++] = first(child);
+                }
+            }
+            return register(new State(node.isWord, chars, targets));
+        }
+
+        /* Returns the state after the first char of node's label */
+        int first(Node node) {
+            int state = end(node);
+            for (int i = node.prefix.length() - 1; i > 0; i--) {
+                state = register(new State(false, new char[]{node.prefix.charAt(i)}, new int[]{state}));
+            }
+            return state;
+        }
+
+        /* Returns the id of the equal state if there is one, otherwise adds state */
+        private int register(State state) {
+            Integer id = ids.get(state);
+            if (id == null) {
+                id = states.size();
+                ids.put(state, id);
+                states.add(state);
+            }
+            return id;
+        }
+    }
+
+    /* A state of the automaton: a word flag and edges (chars[i], targets[i]) in alphabetical order */
+    private static final class State {
+        final boolean isWord;
+        final char[] chars;
+        final int[] targets;
+        private final int hash;
+
+        State(boolean isWord, char[] chars, int[] targets) {
+            this.isWord = isWord;
+            this.chars = chars;
+            this.targets = targets;
+            this.hash = 31 * (31 * Arrays.hashCode(chars) + Arrays.hashCode(targets)) + (isWord ? 1 : 0);
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof State)) {
+                return false;
+            }
+            State other = (State) o;
+            return isWord == other.isWord && hash == other.hash && Arrays.equals(chars, other.chars)
+                    && Arrays.equals(targets, other.targets);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package dictionary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A read-only dictionary stored outside the Java heap, created with CompactPrefixTree.toOffHeap()
+ * or loaded from a file written by save. The nodes and labels are kept in a direct ByteBuffer
+ * in the format of MappedCompactPrefixTree, so the garbage collector has only this object to
+ * look at however many words there are.
+ *
+ * Queries are safe from several threads, also while another thread calls close. Every query
+ * reads the view of the buffer once and does its whole walk on it, so a query that started
+ * before close (and an iterator, stream or cursor created before it) finishes on memory that
+ * is still there. close drops this object's references to the buffer, and the buffer's cleaner
+ * frees the memory once the garbage collector finds that the last of those readers is gone.
+ * Queries that start after close throw IllegalStateException.
+ */
+public final class OffHeapCompactPrefixTree extends PackedTrie implements Closeable {
+
+    private volatile MappedCompactPrefixTree view; // reads the buffer, null once closed
+    private ByteBuffer buffer; // the direct buffer holding the dictionary
+    private final int numNodes;
+    private final int numWords;
+
+    private OffHeapCompactPrefixTree(MappedCompactPrefixTree view, ByteBuffer buffer) {
+        super(view.getFolding());
+        this.buffer = buffer;
+        this.view = view;
+        this.numNodes = view.numNodes();
+        this.numWords = view.numWords();
+    }
+
+    /**
+     * Copies a packed tree into a new direct buffer; used by CompactPrefixTree.toOffHeap()
+     *
+     * @param trie the tree to copy
+     * @return the off-heap dictionary
+     */
+    static OffHeapCompactPrefixTree of(PackedTrie trie) {
+        long size = MappedCompactPrefixTree.size(trie.numNodes(), trie.labelStart(trie.numNodes()));
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The dictionary is too large for a buffer: " + size + " bytes");
+        }
+        ByteBuffer buffer = MappedCompactPrefixTree.toBuffer(trie, ByteBuffer.allocateDirect((int) size));
+        try {
+            return new OffHeapCompactPrefixTree(MappedCompactPrefixTree.wrap(buffer, false, "off-heap dictionary"),
+                    buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // the buffer was just written, its header is valid
+        }
+    }
+
+    /**
+     * Reads a dictionary file written by save (or CompactPrefixTree.save) into off-heap memory
+     * and verifies its checksum.
+     *
+     * @param path the file
+     * @return the off-heap dictionary
+     * @throws IOException if the file can't be read or is not a valid dictionary file
+     */
+    public static OffHeapCompactPrefixTree load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large for a dictionary file");
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // reads the whole file
+            }
+            buffer.flip().order(ByteOrder.LITTLE_ENDIAN);
+            return new OffHeapCompactPrefixTree(MappedCompactPrefixTree.wrap(buffer, true, path.toString()), buffer);
+        }
+    }
+
+    /**
+     * Writes the dictionary to a file that load and MappedCompactPrefixTree.load can read back
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(Path path) throws IOException {
+        MappedCompactPrefixTree.write(view(), path);
+    }
+
+    /**
+     * Returns the number of nodes
+     *
+     * @return the number of nodes, including the root
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Returns the number of words
+     *
+     * @return the number of words
+     */
+    public int numWords() {
+        return numWords;
+    }
+
+    /**
+     * Returns the size of the off-heap memory
+     *
+     * @return the number of bytes, 0 once closed
+     */
+    public long offHeapBytes() {
+        ByteBuffer b = buffer;
+        return b == null ? 0 : b.capacity();
+    }
+
+    /**
+     * Closes the dictionary: queries that start afterwards throw IllegalStateException, and the
+     * memory is freed once the queries still running are done and the buffer is collected.
+     * Calling it again has no effect.
+     */
+    public synchronized void close() {
+        view = null;
+        buffer = null;
+    }
+
+    // ---------- Queries, each on the view read once ---------------
+
+    public boolean check(CharSequence word, int from, int to) {
+        return view().check(word, from, to);
+    }
+
+    public boolean checkPrefix(CharSequence prefix, int from, int to) {
+        return view().checkPrefix(prefix, from, to);
+    }
+
+    public String[] suggest(String word, int numSuggestions, boolean transpositions) {
+        return view().suggest(word, numSuggestions, transpositions);
+    }
+
+    public String[] match(String pattern, int limit) {
+        return view().match(pattern, limit);
+    }
+
+    public String[] match(String pattern, int limit, int parallelism) {
+        return view().match(pattern, limit, parallelism);
+    }
+
+    public void checkAll(String[] words, boolean[] out) {
+        view().checkAll(words, out);
+    }
+
+    public String[][] suggestAll(List<String> words, int numSuggestions) {
+        return view().suggestAll(words, numSuggestions);
+    }
+
+    public void printTree(Appendable out) throws IOException {
+        view().printTree(out);
+    }
+
+    public Stream<String> words(String prefix) {
+        return view().words(prefix);
+    }
+
+    public Iterator<String> iterator() {
+        return view().iterator();
+    }
+
+    public PrefixCursor cursor() {
+        return view().cursor();
+    }
+
+    // ---------- Storage of the packed layout, for the package's own walks ---------------
+
+    int labelStart(int node) {
+        return view().labelStart(node);
+    }
+
+    int firstChild(int node) {
+        return view().firstChild(node);
+    }
+
+    char labelChar(int index) {
+        return view().labelChar(index);
+    }
+
+    boolean isWord(int node) {
+        return view().isWord(node);
+    }
+
+    // ---------- Private helper methods ---------------
+
+    private MappedCompactPrefixTree view() {
+        MappedCompactPrefixTree v = view;
+        if (v == null) {
+            throw new IllegalStateException("The dictionary is closed");
+        }
+        return v;
+    }
+}
@@ -0,0 +1,435 @@
+package dictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read-only compact prefix tree stored as flat arrays, the layout shared by
+ * FrozenCompactPrefixTree (Java arrays), MappedCompactPrefixTree (a mapped file)
+ * and MinimizedCompactPrefixTree (shared suffixes).
+ *
+ * Nodes are numbered in breadth-first order, with the root as node 0, so the children
+ * of every node are numbered consecutively:
+ *  - the children of node i are nodes firstChild(i) .. firstChild(i + 1) - 1,
+ *    in alphabetical order of their labels
+ *  - the label of node i is the chars labelChar(labelStart(i)) .. labelChar(labelStart(i + 1) - 1)
+ *  - isWord(i) is true if the path from the root to node i spells a word
+ * An empty tree has no nodes at all.
+ *
+ * MinimizedCompactPrefixTree shares nodes between parents, so its child lists are not in
+ * node order: the children of node i are childAt(firstChild(i)) .. childAt(childEnd(i) - 1).
+ * For the breadth-first layout childAt is the identity and childEnd(i) is firstChild(i + 1).
+ *
+ * Subclasses only say where the numbers are stored; all queries are implemented here.
+ */
+abstract class PackedTrie implements Dictionary, Iterable<String> {
+    private static final int PRINT_BUFFER = 8192; // chars printTree collects before writing them
+
+    private final CaseFolding folding; // applied to every word looked up
+
+    PackedTrie(CaseFolding folding) {
+        this.folding = folding;
+    }
+
+    /**
+     * Returns the number of nodes
+     * @return the number of nodes, including the root
+     */
+    public abstract int numNodes();
+
+    /**
+     * Returns the number of words stored
+     * @return the number of words
+     */
+    public abstract int numWords();
+
+    /* index of the first char of the node's label; labelStart(numNodes()) is the total label length */
+    abstract int labelStart(int node);
+
+    /* number of the node's first child; firstChild(numNodes()) is numNodes() */
+    abstract int firstChild(int node);
+
+    /* index after the node's last child */
+    int childEnd(int node) {
+        return firstChild(node + 1);
+    }
+
+    /* the node at the given index of the child lists; in the breadth-first layout that is the index itself */
+    int childAt(int index) {
+        return index;
+    }
+
+    /* char at the given index of the shared label storage */
+    abstract char labelChar(int index);
+
+    /* true if the node ends a word */
+    abstract boolean isWord(int node);
+
+    /**
+     * Not supported, the tree is immutable.
+     *
+     * @param word the word to add to the dictionary
+     * @throws UnsupportedOperationException always
+     */
+    public void add(String word) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is read-only");
+    }
+
+    /**
+     * Checks if a given word is in the dictionary
+     *
+     * @param word the word to check
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean check(String word) {
+        return check(word, 0, word.length());
+    }
+
+    /**
+     * Checks if a given prefix is stored in the dictionary
+     *
+     * @param prefix The prefix of a word
+     * @return true if this prefix is a prefix of any word in the dictionary,
+     * and false otherwise
+     */
+    public boolean checkPrefix(String prefix) {
+        return checkPrefix(prefix, 0, prefix.length());
+    }
+
+    /**
+     * Checks if the characters word[from..to) form a word in the dictionary,
+     * without creating any objects. See CompactPrefixTree.check(CharSequence, int, int).
+     *
+     * @param word the characters to check
+     * @param from index of the first char of the word
+     * @param to   index after the last char of the word
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean check(CharSequence word, int from, int to) {
+        Objects.checkFromToIndex(from, to, word.length());
+        if (numNodes() == 0) {
+            return false;
+        }
+        int node = 0;
+        int index = from;
+        while (index < to) {
+            node = findChild(node, folding.fold(word.charAt(index)));
+            if (node < 0) {
+                return false;
+            }
+            int start = labelStart(node);
+            int length = labelStart(node + 1) - start;
+            if (length > to - index) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (labelChar(start + i) != folding.fold(word.charAt(index + i))) {
+                    return false;
+                }
+            }
+            index += length;
+        }
+        return isWord(node);
+    }
+
+    /**
+     * Checks if the characters prefix[from..to) are a prefix of any word in the dictionary,
+     * without creating any objects.
+     *
+     * @param prefix the characters to check
+     * @param from   index of the first char of the prefix
+     * @param to     index after the last char of the prefix
+     * @return true if this prefix is a prefix of any word in the dictionary,
+     * and false otherwise
+     */
+    public boolean checkPrefix(CharSequence prefix, int from, int to) {
+        Objects.checkFromToIndex(from, to, prefix.length());
+        if (from == to) {
+            return true;
+        }
+        if (numNodes() == 0) {
+            return false;
+        }
+        int node = 0;
+        int index = from;
+        while (index < to) {
+            node = findChild(node, folding.fold(prefix.charAt(index)));
+            if (node < 0) {
+                return false;
+            }
+            int end = labelStart(node + 1);
+            for (int i = labelStart(node); i < end && index < to; i++, index++) {
+                if (labelChar(i) != folding.fold(prefix.charAt(index))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns an array of "suggestions" - the closest entries in the dictionary to
+     * the target word. Gives the same suggestions as the CompactPrefixTree this
+     * tree was created from.
+     *
+     * @param word           the target word
+     * @param numSuggestions the number of suggestions to return
+     * @return the array with suggestions
+     */
+    public String[] suggest(String word, int numSuggestions) {
+        return suggest(word, numSuggestions, false);
+    }
+
+    /**
+     * Same as suggest(word, numSuggestions), optionally counting a swap of two
+     * adjacent letters as a single edit. See CompactPrefixTree.suggest(String, int, boolean).
+     *
+     * @param word           the target word
+     * @param numSuggestions the number of suggestions to return
+     * @param transpositions true to count swapped adjacent letters as one edit
+     * @return the array with suggestions
+     */
+    public String[] suggest(String word, int numSuggestions, boolean transpositions) {
+        if (check(word)) {
+            return new String[]{word};
+        }
+        return Suggester.suggest(nodes, root(), folding.fold(word), numSuggestions,
+                transpositions);
+    }
+
+    /**
+     * Returns the words that match a wildcard pattern, in alphabetical order,
+     * see CompactPrefixTree.match(String, int)
+     *
+     * @param pattern the pattern
+     * @param limit   the largest number of words to return
+     * @return up to limit words
+     * @throws IllegalArgumentException if the pattern is not valid
+     */
+    public String[] match(String pattern, int limit) {
+        return PatternMatcher.match(nodes, root(), pattern, folding, limit, 1);
+    }
+
+    /**
+     * Same as match(pattern, limit), searching the subtrees of the root's children in parallel
+     *
+     * @param pattern     the pattern
+     * @param limit       the largest number of words to return
+     * @param parallelism the number of threads to search with
+     * @return up to limit words
+     * @throws IllegalArgumentException if the pattern is not valid
+     */
+    public String[] match(String pattern, int limit, int parallelism) {
+        return PatternMatcher.match(nodes, root(), pattern, folding, limit, parallelism);
+    }
+
+    /**
+     * Checks a batch of words at once. The words are sorted and looked up in a single
+     * walk over the tree, so words with a common prefix share the work for that prefix.
+     *
+     * @param words the words to check
+     * @return an array with result[i] true if words.get(i) is in the dictionary
+     */
+    public boolean[] checkAll(List<String> words) {
+        boolean[] out = new boolean[words.size()];
+        checkAll(words.toArray(new String[0]), out);
+        return out;
+    }
+
+    /**
+     * Checks a batch of words at once, see checkAll(List)
+     *
+     * @param words the words to check
+     * @param out   receives the results: out[i] is true if words[i] is in the dictionary
+     */
+    public void checkAll(String[] words, boolean[] out) {
+        BatchLookup.checkAll(nodes, root(), folding, words, out);
+    }
+
+    /**
+     * Returns suggestions for a batch of words; words that are in the dictionary are
+     * found in one walk over the tree and suggestions for a repeated word are computed once.
+     *
+     * @param words          the target words
+     * @param numSuggestions the number of suggestions for each word
+     * @return an array with result[i] the same as suggest(words.get(i), numSuggestions)
+     */
+    public String[][] suggestAll(List<String> words, int numSuggestions) {
+        return BatchLookup.suggestAll(nodes, root(), folding, words.toArray(new String[0]), numSuggestions, false);
+    }
+
+    /**
+     * Returns the same pre-order, indented representation as CompactPrefixTree.toString()
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            printTree(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder doesn't throw
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the same representation as toString() to out, one node at a time
+     *
+     * @param out where to write the tree
+     * @throws IOException if out throws it
+     */
+    public void printTree(Appendable out) throws IOException {
+        if (numNodes() == 0) {
+            return;
+        }
+        StringBuilder buffer = out instanceof StringBuilder ? (StringBuilder) out : new StringBuilder(PRINT_BUFFER + 64);
+        printTree(0, 0, buffer, out);
+        if (buffer != out) {
+            out.append(buffer);
+        }
+    }
+
+    /**
+     * Returns all words in alphabetical order, enumerated lazily; see CompactPrefixTree.words()
+     *
+     * @return the stream of words
+     */
+    public Stream<String> words() {
+        return words("");
+    }
+
+    /**
+     * Returns the words that start with the given prefix, in alphabetical order
+     *
+     * @param prefix the prefix of the words
+     * @return the stream of words
+     */
+    public Stream<String> words(String prefix) {
+        return StreamSupport.stream(TrieSpliterator.words(nodes, root(), folding.fold(prefix),
+                prefix.isEmpty() ? numWords() : Long.MAX_VALUE), false);
+    }
+
+    /**
+     * Returns an iterator over all words, in alphabetical order
+     *
+     * @return the iterator
+     */
+    public Iterator<String> iterator() {
+        return Spliterators.iterator(TrieSpliterator.words(nodes, root(), "", numWords()));
+    }
+
+    /**
+     * Returns a cursor for looking up a word one typed char at a time, see PrefixCursor.
+     * Its completions are in alphabetical order.
+     *
+     * @return a cursor at the empty prefix
+     */
+    public PrefixCursor cursor() {
+        return PrefixCursor.of(nodes, root(), folding, (node, above, k) -> StreamSupport.stream(
+                TrieSpliterator.below(nodes, node, above, Long.MAX_VALUE), false).limit(k).toArray(String[]::new));
+    }
+
+    /**
+     * Returns how the dictionary folds the case of words, the same as the tree it was created from
+     *
+     * @return the case folding
+     */
+    public CaseFolding getFolding() {
+        return folding;
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /* Returns the child of node whose label starts with c, or -1 (binary search over the children) */
+    int findChild(int node, char c) {
+        int lo = firstChild(node);
+        int hi = childEnd(node) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char key = labelChar(labelStart(childAt(mid)));
+            if (key < c) {
+                lo = mid + 1;
+            } else if (key > c) {
+                hi = mid - 1;
+            } else {
+                return childAt(mid);
+            }
+        }
+        return -1;
+    }
+
+    /* Pre-order, one line per node; the buffer is written to out once it holds PRINT_BUFFER chars */
+    private void printTree(int node, int numIndentations, StringBuilder buffer, Appendable out) throws IOException {
+        for (int i = 0; i < numIndentations; i++) {
+            buffer.append(' ');
+        }
+        for (int i = labelStart(node); i < labelStart(node + 1); i++) {
+            buffer.append(labelChar(i));
+        }
+        buffer.append(isWord(node) ? "*\n" : "\n");
+        if (buffer != out && buffer.length() >= PRINT_BUFFER) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        for (int i = firstChild(node); i < childEnd(node); i++) {
+            printTree(childAt(i), numIndentations + 1, buffer, out);
+        }
+    }
+
+    /* The root node for TrieNavigator based algorithms, null for an empty tree */
+    Integer root() {
+        return numNodes() == 0 ? null : Integer.valueOf(0);
+    }
+
+    /* Returns the label of the node as a new string */
+    String label(int node) {
+        char[] label = new char[labelStart(node + 1) - labelStart(node)];
+        for (int i = 0; i < label.length; i++) {
+            label[i] = labelChar(labelStart(node) + i);
+        }
+        return new String(label);
+    }
+
+    // Lets Suggester walk the tree; a node is referred to by its number.
+    // Every node these walks reach is boxed (only 0..127 come from the Integer cache): a suggest on
+    // the OSPD list boxes about 9,000 node numbers, 150 KB of garbage that dies young. Handing out
+    // a cached box per node brings that under 2 KB but doesn't make suggest, match or words any
+    // faster, and the boxes of the OSPD tree would take 1.9 MB of heap, more than the 1.1 MB of the
+    // packed tree itself (and the mapped and off-heap layouts keep their nodes off the heap). So the
+    // algorithms are kept generic instead of having a second copy for int nodes.
+    final TrieNavigator<Integer> nodes = new TrieNavigator<Integer>() {
+        public String label(Integer node) {
+            return PackedTrie.this.label(node);
+        }
+
+        public int labelLength(Integer node) {
+            return labelStart(node + 1) - labelStart(node);
+        }
+
+        public char labelChar(Integer node, int i) {
+            return PackedTrie.this.labelChar(labelStart(node) + i);
+        }
+
+        public boolean isWord(Integer node) {
+            return PackedTrie.this.isWord(node);
+        }
+
+        public Integer child(Integer node, char c) {
+            int child = findChild(node, c);
+            return child < 0 ? null : child;
+        }
+
+        public int numSlots(Integer node) {
+            return childEnd(node) - firstChild(node);
+        }
+
+        public Integer slot(Integer node, int i) {
+            return childAt(firstChild(node) + i);
+        }
+    };
+}
@@ -0,0 +1,315 @@
+package dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Finds the words that match a wildcard pattern, over any tree layout.
+ *
+ * In a pattern, ? matches any one char, * any run of chars (also none), [abc] one of the chars,
+ * [a-z] a char in the range, and [^abc] or [!abc] a char that is not one of them; \ makes the
+ * next char an ordinary char. Every other char matches itself. The chars of the pattern are
+ * case folded like the words of the tree.
+ *
+ * The pattern is compiled into a nondeterministic automaton with a state for each step of the
+ * pattern, and the states the automaton can be in are kept in the bits of a long. The search
+ * walks the tree depth-first and feeds the automaton every char of every label, so words that
+ * share a prefix share the work for it, and it leaves a subtree as soon as no state is left:
+ * for "c?t" it never goes further than three chars down. When the only step left is a final *,
+ * every word of the subtree matches and it is enumerated without running the automaton.
+ */
+final class PatternMatcher {
+    private static final int MAX_STEPS = 63; // the states 0..numSteps must fit in a long
+
+    private final int numSteps;
+    private final boolean[] star; // star[i] is true if step i is *
+    private final char[][] ranges; // the chars step i matches, as pairs of first and last char
+    private final boolean[] negated; // true if step i matches the chars not in its ranges
+    private final int[] literal; // the only char step i matches, or -1
+    private final long[] ascii = new long[128]; // ascii[c] has the steps (not *) that match c
+    private final long starMask; // the steps that are *
+    private final long accept; // the state after the last step
+    private final long matchAll; // the last step if it is *, otherwise 0
+
+    private PatternMatcher(List<char[]> ranges, List<Boolean> negated, List<Boolean> star) {
+        numSteps = ranges.size();
+        this.ranges = ranges.toArray(new char[0][]);
+        this.negated = new boolean[numSteps];
+        this.star = new boolean[numSteps];
+        literal = new int[numSteps];
+        long stars = 0;
+        for (int i = 0; i < numSteps; i++) {
+            this.negated[i] = negated.get(i);
+            this.star[i] = star.get(i);
+            char[] r = this.ranges[i];
+            literal[i] = !this.star[i] && !this.negated[i] && r.length == 2 && r[0] == r[1] ? r[0] : -1;
+            if (this.star[i]) {
+                stars |= 1L << i;
+            } else {
+                for (char c = 0; c < 128; c++) {
+                    if (matches(i, c)) {
+                        ascii[c] |= 1L << i;
+                    }
+                }
+            }
+        }
+        starMask = stars;
+        accept = 1L << numSteps;
+        matchAll = numSteps > 0 && this.star[numSteps - 1] ? 1L << (numSteps - 1) : 0;
+    }
+
+    /**
+     * Returns the words that match pattern, in alphabetical order
+     *
+     * @param trie        the tree layout
+     * @param root        the root of the tree, may be null for an empty tree
+     * @param pattern     the pattern, see PatternMatcher
+     * @param folding     the case folding of the tree
+     * @param limit       the largest number of words to return
+     * @param parallelism the number of threads, 1 to search on the calling thread; with more,
+     *                    the subtrees of the root's children are searched in parallel
+     * @param <N>         the node type of the layout
+     * @return up to limit words
+     * @throws IllegalArgumentException if the pattern is not valid or parallelism is less than 1
+     */
+    static <N> String[] match(TrieNavigator<N> trie, N root, String pattern, CaseFolding folding,
+                              int limit, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        PatternMatcher matcher = compile(pattern, folding);
+        if (root == null || limit <= 0) {
+            return new String[0];
+        }
+        long states = matcher.closure(1L);
+        if (parallelism == 1) {
+            Search<N> search = new Search<>(matcher, trie, "", limit);
+            search.visit(root, 0, states);
+            return search.results();
+        }
+
+        String label = trie.label(root); // the root's label is "" in every layout, but doesn't have to be
+        for (int i = 0; i < label.length() && states != 0; i++) {
+            states = matcher.next(states, label.charAt(i));
+        }
+        if (states == 0) {
+            return new String[0];
+        }
+        List<String> words = new ArrayList<>();
+        if (trie.isWord(root) && (states & matcher.accept) != 0) {
+            words.add(label);
+        }
+        List<ForkJoinTask<String[]>> tasks = new ArrayList<>();
+        long rootStates = states;
+        for (int i = 0; i < trie.numSlots(root); i++) {
+            N child = trie.slot(root, i);
+            if (child != null) {
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    Search<N> search = new Search<>(matcher, trie, label, limit);
+                    search.visit(child, label.length(), rootStates);
+                    return search.results();
+                }));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (ForkJoinTask<String[]> task : tasks) {
+                pool.execute(task);
+            }
+            for (ForkJoinTask<String[]> task : tasks) {
+                words.addAll(Arrays.asList(task.join()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return words.subList(0, Math.min(limit, words.size())).toArray(new String[0]);
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /* Parses the pattern into steps; consecutive stars become one */
+    private static PatternMatcher compile(String pattern, CaseFolding folding) {
+        List<char[]> ranges = new ArrayList<>();
+        List<Boolean> negated = new ArrayList<>();
+        List<Boolean> star = new ArrayList<>();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                if (!star.isEmpty() && star.get(star.size() - 1)) {
+                    continue;
+                }
+                ranges.add(new char[0]);
+                negated.add(true);
+                star.add(true);
+            } else if (c == '?') {
+                ranges.add(new char[0]);
+                negated.add(true);
+                star.add(false);
+            } else if (c == '[') {
+                int j = i + 1;
+                boolean not = j < pattern.length() && (pattern.charAt(j) == '^' || pattern.charAt(j) == '!');
+                if (not) {
+                    j++;
+                }
+                StringBuilder pairs = new StringBuilder();
+                while (j < pattern.length() && pattern.charAt(j) != ']') {
+                    if (pattern.charAt(j) == '\\') {
+                        j++;
+                        if (j == pattern.length()) {
+                            break;
+                        }
+                    }
+                    char first = folding.fold(pattern.charAt(j));
+                    char last = first;
+                    if (j + 2 < pattern.length() && pattern.charAt(j + 1) == '-' && pattern.charAt(j + 2) != ']') {
+                        last = folding.fold(pattern.charAt(j + 2));
+                        j += 2;
+                    }
+                    if (last < first) {
+                        throw new IllegalArgumentException("Bad range " + first + "-" + last + " in pattern " + pattern);
+                    }
+                    pairs.append(first).append(last);
+                    j++;
+                }
+                if (j == pattern.length()) {
+                    throw new IllegalArgumentException("Missing ] in pattern " + pattern);
+                }
+                if (pairs.length() == 0) {
+                    throw new IllegalArgumentException("Empty [] in pattern " + pattern);
+                }
+                ranges.add(pairs.toString().toCharArray());
+                negated.add(not);
+                star.add(false);
+                i = j;
+            } else {
+                if (c == '\\') {
+                    if (++i == pattern.length()) {
+                        throw new IllegalArgumentException("Pattern ends with \\: " + pattern);
+                    }
+                    c = pattern.charAt(i);
+                }
+                c = folding.fold(c);
+                ranges.add(new char[]{c, c});
+                negated.add(false);
+                star.add(false);
+            }
+            if (ranges.size() > MAX_STEPS) {
+                throw new IllegalArgumentException("Pattern has more than " + MAX_STEPS + " steps: " + pattern);
+            }
+        }
+        return new PatternMatcher(ranges, negated, star);
+    }
+
+    /* Whether step i, which is not a star, matches c */
+    private boolean matches(int i, char c) {
+        char[] r = ranges[i];
+        boolean in = false;
+        for (int j = 0; j < r.length && !in; j += 2) {
+            in = c >= r[j] && c <= r[j + 1];
+        }
+        return in != negated[i];
+    }
+
+    /* The states after reading c in any of the given states */
+    private long next(long states, char c) {
+        long steps;
+        if (c < 128) {
+            steps = ascii[c];
+        } else {
+            steps = 0;
+            for (int i = 0; i < numSteps; i++) {
+                if (!star[i] && matches(i, c)) {
+                    steps |= 1L << i;
+                }
+            }
+        }
+        return closure((states & steps) << 1 | states & starMask); // a star reads c and stays
+    }
+
+    /* Adds the state after each star: a star may match no chars. Stars are never next to each other */
+    private long closure(long states) {
+        return states | (states & starMask) << 1;
+    }
+
+    /* The only char that can move on from the given states if they are a single literal step, or -1 */
+    private int literal(long states) {
+        if (Long.bitCount(states) != 1) {
+            return -1;
+        }
+        int i = Long.numberOfTrailingZeros(states);
+        return i < numSteps ? literal[i] : -1;
+    }
+
+    /* State of one search, over the whole tree or the subtree of one child of the root */
+    private static final class Search<N> {
+        final PatternMatcher matcher;
+        final TrieNavigator<N> trie;
+        final int limit;
+        final List<String> words = new ArrayList<>();
+        char[] path; // chars from the root to the current position
+
+        Search(PatternMatcher matcher, TrieNavigator<N> trie, String above, int limit) {
+            this.matcher = matcher;
+            this.trie = trie;
+            this.limit = limit;
+            path = Arrays.copyOf(above.toCharArray(), Math.max(32, above.length() * 2));
+        }
+
+        /* Visits node, whose label starts after the first depth chars of the path, in the given states */
+        void visit(N node, int depth, long states) {
+            int length = trie.labelLength(node);
+            if (depth + length > path.length) {
+                path = Arrays.copyOf(path, (depth + length) * 2);
+            }
+            for (int i = 0; i < length; i++) {
+                if ((states & matcher.matchAll) != 0) {
+                    addAll(node, depth);
+                    return;
+                }
+                char c = trie.labelChar(node, i);
+                states = matcher.next(states, c);
+                if (states == 0) {
+                    return;
+                }
+                path[depth + i] = c;
+            }
+            if ((states & matcher.matchAll) != 0) {
+                addAll(node, depth);
+                return;
+            }
+            int end = depth + length;
+            if (trie.isWord(node) && (states & matcher.accept) != 0) {
+                words.add(new String(path, 0, end));
+            }
+            int literal = matcher.literal(states);
+            if (literal >= 0) { // only one child can match, find it instead of trying them all
+                N child = trie.child(node, (char) literal);
+                if (child != null && words.size() < limit) {
+                    visit(child, end, states);
+                }
+                return;
+            }
+            for (int i = 0; i < trie.numSlots(node) && words.size() < limit; i++) {
+                N child = trie.slot(node, i);
+                if (child != null) {
+                    visit(child, end, states);
+                }
+            }
+        }
+
+        /* Adds the words of the subtree of node, all of which match */
+        private void addAll(N node, int depth) {
+            TrieSpliterator<N> all = TrieSpliterator.below(trie, node, new String(path, 0, depth), Long.MAX_VALUE);
+            while (words.size() < limit && all.tryAdvance(words::add)) {
+                // takes words until the limit is reached
+            }
+        }
+
+        String[] results() {
+            return words.subList(0, Math.min(limit, words.size())).toArray(new String[0]);
+        }
+    }
+}
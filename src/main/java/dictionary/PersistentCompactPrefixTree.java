@@ -0,0 +1,353 @@
+package dictionary;
+
+import dictionary.CompactPrefixTree.Node;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable version of a dictionary. add and remove don't change it, they return a new
+ * version that copies the nodes on the path of the word and shares every other subtree
+ * with this one (path copying), so a change costs O(length of the word) nodes and any
+ * number of versions can be kept and read from any thread at the same time.
+ *
+ * For reloads: apply the changes of a new word list as adds and removes to the current
+ * version and publish the result; readers that still hold the old version keep getting
+ * answers from it, and diff lists the words that changed, for refreshing caches.
+ * diff skips subtrees the two versions share, so it costs time for the changed paths,
+ * not for the whole dictionary.
+ */
+public final class PersistentCompactPrefixTree implements Iterable<String> {
+
+    private final CompactPrefixTree tree; // answers the queries; its nodes are never changed
+    private final long version; // number of changes since the first version
+
+    private PersistentCompactPrefixTree(CompactPrefixTree tree, long version) {
+        this.tree = tree;
+        this.version = version;
+    }
+
+    /**
+     * Returns an empty dictionary that folds the case of words with the given folding
+     *
+     * @param folding the case folding, see CaseFolding
+     * @return version 0 of the dictionary, with no words
+     */
+    public static PersistentCompactPrefixTree empty(CaseFolding folding) {
+        return new PersistentCompactPrefixTree(new CompactPrefixTree(Objects.requireNonNull(folding)), 0);
+    }
+
+    /**
+     * Returns a dictionary with the given words, built in one pass (see CompactPrefixTreeBuilder)
+     *
+     * @param words   the words
+     * @param folding the case folding, see CaseFolding
+     * @return version 0 of the dictionary
+     */
+    public static PersistentCompactPrefixTree of(Iterable<String> words, CaseFolding folding) {
+        return new PersistentCompactPrefixTree(new CompactPrefixTreeBuilder(folding).addAll(words).build(), 0);
+    }
+
+    /**
+     * Returns a version with the word added
+     *
+     * @param word the word to add
+     * @return the new version, or this version if the word is empty or already in the dictionary
+     */
+    public PersistentCompactPrefixTree add(String word) {
+        if (word.isEmpty() || tree.check(word)) {
+            return this;
+        }
+        Node root = CompactPrefixTree.copyAndAdd(tree.root(), tree.getFolding().fold(word));
+        return new PersistentCompactPrefixTree(new CompactPrefixTree(root, tree.getFolding()), version + 1);
+    }
+
+    /**
+     * Returns a version with the word removed, see CompactPrefixTree.remove
+     *
+     * @param word the word to remove
+     * @return the new version, or this version if the word is not in the dictionary
+     */
+    public PersistentCompactPrefixTree remove(String word) {
+        if (word.isEmpty() || !tree.check(word)) {
+            return this;
+        }
+        Node root = CompactPrefixTree.remove(tree.root(), tree.getFolding().fold(word), true);
+        return new PersistentCompactPrefixTree(new CompactPrefixTree(root, tree.getFolding()), version + 1);
+    }
+
+    /**
+     * Returns a version with all the words added, see add(String)
+     *
+     * @param words the words to add
+     * @return the new version, or this version if it already has all the words
+     */
+    public PersistentCompactPrefixTree addAll(Iterable<String> words) {
+        PersistentCompactPrefixTree result = this;
+        for (String word : words) {
+            result = result.add(word);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a version with all the words removed, see remove(String)
+     *
+     * @param words the words to remove
+     * @return the new version, or this version if it has none of the words
+     */
+    public PersistentCompactPrefixTree removeAll(Iterable<String> words) {
+        PersistentCompactPrefixTree result = this;
+        for (String word : words) {
+            result = result.remove(word);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the words that are in one version and not in the other, in alphabetical order.
+     * Subtrees that the versions share are skipped without being looked at, so comparing
+     * versions derived from each other costs time for the changed paths only (versions built
+     * separately are compared node by node). The words are found lazily as the stream is consumed.
+     *
+     * @param from the old version
+     * @param to   the new version
+     * @return the changes that turn from into to
+     */
+    public static Stream<Change> diff(PersistentCompactPrefixTree from, PersistentCompactPrefixTree to) {
+        Iterator<Change> changes = new DiffIterator(from.tree.root(), to.tree.root());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(changes,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false); // Change is not Comparable, so not SORTED
+    }
+
+    /**
+     * Returns the number of changes since version 0
+     *
+     * @return the version number
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Checks if a given word is in this version
+     *
+     * @param word the word to check
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean check(String word) {
+        return tree.check(word);
+    }
+
+    /**
+     * Checks if a given prefix is a prefix of a word in this version
+     *
+     * @param prefix The prefix of a word
+     * @return true if this prefix is a prefix of any word in the dictionary,
+     * and false otherwise
+     */
+    public boolean checkPrefix(String prefix) {
+        return tree.checkPrefix(prefix);
+    }
+
+    /**
+     * Returns suggestions for a word from this version, see CompactPrefixTree.suggest(String, int)
+     *
+     * @param word           the target word
+     * @param numSuggestions the number of suggestions to return
+     * @return the array with suggestions
+     */
+    public String[] suggest(String word, int numSuggestions) {
+        return tree.suggest(word, numSuggestions);
+    }
+
+    /**
+     * Returns the words of this version, in alphabetical order
+     *
+     * @return the stream of words
+     */
+    public Stream<String> words() {
+        return tree.words();
+    }
+
+    /**
+     * Returns an iterator over the words of this version, in alphabetical order
+     *
+     * @return the iterator
+     */
+    public Iterator<String> iterator() {
+        return tree.iterator();
+    }
+
+    /**
+     * Returns a frozen copy of this version, see CompactPrefixTree.freeze()
+     *
+     * @return the frozen dictionary
+     */
+    public FrozenCompactPrefixTree freeze() {
+        return tree.freeze();
+    }
+
+    /**
+     * Returns how the dictionary folds the case of words
+     *
+     * @return the case folding
+     */
+    public CaseFolding getFolding() {
+        return tree.getFolding();
+    }
+
+    /**
+     * Returns the same representation as CompactPrefixTree.toString()
+     */
+    public String toString() {
+        return tree.toString();
+    }
+
+    /**
+     * A word that diff found in only one of the two versions
+     */
+    public static final class Change {
+        private final String word;
+        private final boolean added;
+
+        Change(String word, boolean added) {
+            this.word = word;
+            this.added = added;
+        }
+
+        /**
+         * The word, with its case folded
+         */
+        public String getWord() {
+            return word;
+        }
+
+        /**
+         * True if the word is only in the new version, false if it is only in the old one
+         */
+        public boolean isAdded() {
+            return added;
+        }
+
+        public String toString() {
+            return (added ? "+" : "-") + word;
+        }
+    }
+
+    /* Walks the two trees together one char at a time, pre-order. A position is a node and the
+     * number of chars of its label matched so far (null for a path only the other tree has);
+     * the trees can split the same path into different labels, so the positions of the same
+     * path may be at different offsets. */
+    private static final class DiffIterator implements Iterator<Change> {
+        private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+        private final StringBuilder path = new StringBuilder();
+        private Change next;
+
+        DiffIterator(Node from, Node to) {
+            stack.push(new Frame(from, 0, to, 0, 0, '\0'));
+        }
+
+        public boolean hasNext() {
+            while (next == null && !stack.isEmpty()) {
+                step(stack.pop());
+            }
+            return next != null;
+        }
+
+        public Change next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Change change = next;
+            next = null;
+            return change;
+        }
+
+        private void step(Frame frame) {
+            if (frame.from == frame.to && frame.fromOffset == frame.toOffset) {
+                return; // the same subtree in both versions
+            }
+            if (frame.depth > 0) {
+                path.setLength(frame.depth - 1);
+                path.append(frame.c);
+            }
+            boolean fromWord = isWord(frame.from, frame.fromOffset);
+            if (fromWord != isWord(frame.to, frame.toOffset)) {
+                next = new Change(path.toString(), !fromWord);
+            }
+            ArrayList<Frame> fromNext = successors(frame.from, frame.fromOffset);
+            ArrayList<Frame> toNext = successors(frame.to, frame.toOffset);
+            ArrayList<Frame> merged = new ArrayList<>(fromNext.size() + toNext.size());
+            int i = 0;
+            int j = 0;
+            while (i < fromNext.size() || j < toNext.size()) {
+                Frame a = i < fromNext.size() ? fromNext.get(i) : null;
+                Frame b = j < toNext.size() ? toNext.get(j) : null;
+                if (b == null || a != null && a.c < b.c) {
+                    merged.add(new Frame(a.from, a.fromOffset, null, 0, frame.depth + 1, a.c));
+                    i++;
+                } else if (a == null || b.c < a.c) {
+                    merged.add(new Frame(null, 0, b.from, b.fromOffset, frame.depth + 1, b.c));
+                    j++;
+                } else {
+                    merged.add(new Frame(a.from, a.fromOffset, b.from, b.fromOffset, frame.depth + 1, a.c));
+                    i++;
+                    j++;
+                }
+            }
+            for (int k = merged.size() - 1; k >= 0; k--) { // the smallest char is visited first
+                stack.push(merged.get(k));
+            }
+        }
+
+        private static boolean isWord(Node node, int offset) {
+            return node != null && node.isWord && offset == node.prefix.length();
+        }
+
+        /* The positions one char further down, in alphabetical order (only node and offset are used) */
+        private static ArrayList<Frame> successors(Node node, int offset) {
+            ArrayList<Frame> next = new ArrayList<>();
+            if (node == null) {
+                return next;
+            }
+            if (offset < node.prefix.length()) {
+                next.add(new Frame(node, offset + 1, null, 0, 0, node.prefix.charAt(offset)));
+                return next;
+            }
+            for (int i = 0; i < node.numSlots(); i++) {
+                Node child = node.getSlot(i);
+                if (child != null) {
+                    next.add(new Frame(child, 1, null, 0, 0, child.prefix.charAt(0)));
+                }
+            }
+            return next;
+        }
+    }
+
+    /* A pair of positions on the same path of the two trees, and the last char of the path */
+    private static final class Frame {
+        final Node from;
+        final int fromOffset;
+        final Node to;
+        final int toOffset;
+        final int depth; // length of the path
+        final char c;
+
+        Frame(Node from, int fromOffset, Node to, int toOffset, int depth, char c) {
+            this.from = from;
+            this.fromOffset = fromOffset;
+            this.to = to;
+            this.toOffset = toOffset;
+            this.depth = depth;
+            this.c = c;
+        }
+    }
+}
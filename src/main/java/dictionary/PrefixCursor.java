@@ -0,0 +1,172 @@
+package dictionary;
+
+import java.util.Arrays;
+
+/**
+ * Looks up a word one char at a time, for as-you-type checks and completions.
+ * Created with cursor() of a tree, starting at the empty prefix.
+ *
+ * The cursor remembers the node it is at and how many chars of that node's label have
+ * been matched, one entry per typed char, so advance and backspace each cost O(1)
+ * (plus one child lookup when a label is finished) instead of looking up the whole
+ * prefix again. Once a char leads off the tree the cursor only counts the chars typed
+ * after it, so backspacing over them gets back to the last valid prefix.
+ *
+ * A cursor is not thread-safe and must not be used after the tree it came from changes;
+ * it takes a few small arrays that grow with the length of the typed text.
+ */
+public final class PrefixCursor {
+
+    /* Finds the completions below a node for completions(k) */
+    interface Completer<N> {
+        /**
+         * Returns up to k words of the subtree of node, in the order the tree ranks them
+         *
+         * @param node  the root of the subtree
+         * @param above the chars on the path from the root to node, not including its label
+         * @param k     the number of words to return
+         * @return the words
+         */
+        String[] complete(N node, String above, int k);
+    }
+
+    private final TrieNavigator<Object> trie;
+    private final Completer<Object> completer;
+    private final CaseFolding folding;
+    private final Object root; // null for an empty tree
+    private Object[] nodes = new Object[16]; // nodes[i]: the node reached after the first i chars
+    private int[] offsets = new int[16]; // offsets[i]: chars of the label of nodes[i] matched after i chars
+    private char[] text = new char[16]; // the matched chars, folded
+    private int length; // number of chars matched
+    private int dead; // number of chars typed after the first char that left the tree
+
+    private PrefixCursor(TrieNavigator<Object> trie, Object root, CaseFolding folding, Completer<Object> completer) {
+        this.trie = trie;
+        this.root = root;
+        this.folding = folding;
+        this.completer = completer;
+        nodes[0] = root;
+    }
+
+    /**
+     * Creates a cursor at the empty prefix; used by the trees in this package
+     *
+     * @param trie      the tree layout
+     * @param root      the root of the tree, with an empty label; may be null for an empty tree
+     * @param folding   the case folding of the tree
+     * @param completer finds the completions below a node
+     * @param <N>       the node type of the layout
+     * @return the cursor
+     */
+    @SuppressWarnings("unchecked")
+    static <N> PrefixCursor of(TrieNavigator<N> trie, N root, CaseFolding folding, Completer<N> completer) {
+        return new PrefixCursor((TrieNavigator<Object>) trie, root, folding, (Completer<Object>) completer);
+    }
+
+    /**
+     * Types one more char (with its case folded like the tree's words)
+     *
+     * @param c the char
+     * @return true if the text typed so far is still a prefix of a word, see isPrefix
+     */
+    public boolean advance(char c) {
+        if (dead > 0 || root == null) {
+            dead++;
+            return false;
+        }
+        char lower = folding.fold(c);
+        Object node = nodes[length];
+        int offset = offsets[length];
+        if (offset < trie.labelLength(node)) { // still inside the label
+            if (trie.labelChar(node, offset) != lower) {
+                dead++;
+                return false;
+            }
+            offset++;
+        } else {
+            node = trie.child(node, lower);
+            if (node == null) {
+                dead++;
+                return false;
+            }
+            offset = 1;
+        }
+        if (length + 1 == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[length] = lower;
+        length++;
+        nodes[length] = node;
+        offsets[length] = offset;
+        return true;
+    }
+
+    /**
+     * Removes the last typed char
+     *
+     * @return false if there was no char to remove
+     */
+    public boolean backspace() {
+        if (dead > 0) {
+            dead--;
+            return true;
+        }
+        if (length == 0) {
+            return false;
+        }
+        nodes[length] = null;
+        length--;
+        return true;
+    }
+
+    /**
+     * Checks if the typed text is a word in the dictionary, same as check(text)
+     *
+     * @return true if the text is a word
+     */
+    public boolean isWord() {
+        if (dead > 0 || length == 0) {
+            return false;
+        }
+        Object node = nodes[length];
+        return offsets[length] == trie.labelLength(node) && trie.isWord(node);
+    }
+
+    /**
+     * Checks if the typed text is a prefix of a word in the dictionary, same as checkPrefix(text)
+     *
+     * @return true if the text is a prefix of a word (the empty text always is)
+     */
+    public boolean isPrefix() {
+        return dead == 0;
+    }
+
+    /**
+     * Returns the number of chars typed, including the ones after the text left the tree
+     *
+     * @return the length of the typed text
+     */
+    public int length() {
+        return length + dead;
+    }
+
+    /**
+     * Returns words that start with the typed text, found from the cursor's node without
+     * looking up the text again. Trees with weights (CompactPrefixTree.add(word, weight))
+     * give the words with the largest weights first, as complete(prefix, k) does;
+     * otherwise the words are the first ones in alphabetical order.
+     *
+     * @param k the number of words to return
+     * @return up to k words, none if the text is not a prefix of any word
+     */
+    public String[] completions(int k) {
+        if (dead > 0 || root == null || k <= 0) {
+            return new String[0];
+        }
+        Object node = nodes[length];
+        String above = new String(text, 0, length - offsets[length]);
+        return completer.complete(node, above, k);
+    }
+}
@@ -0,0 +1,225 @@
+package dictionary;
+
+import dictionary.CompactPrefixTree.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Union, intersection and difference of two trees in one walk over both.
+ *
+ * The walk goes down the two trees together one path at a time. A position in a tree is a node
+ * and the number of chars of its label matched so far, so the two trees may split the same path
+ * into different labels: the common part of two labels is compared once, and where they differ
+ * the walk continues with the rest of each label as a separate edge. The result is built on the
+ * way back up, already compact: a node of the result without a word and with a single child is
+ * merged into that child, and a node without words below it is dropped. A subtree that only one
+ * tree has is copied (or skipped) without being compared, so the cost is the number of nodes
+ * the trees have in common plus the size of the result.
+ *
+ * The weight of a word in both trees is the larger of its two weights.
+ */
+final class SetOperations {
+    static final int UNION = 0; // words in either tree
+    static final int INTERSECT = 1; // words in both trees
+    static final int SUBTRACT = 2; // words in the first tree and not in the second
+
+    private final int operation;
+
+    private SetOperations(int operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Combines two trees into a new tree; the nodes of the result are new, the two trees are not changed
+     *
+     * @param a           the root of the first tree, or null
+     * @param b           the root of the second tree, or null
+     * @param operation   UNION, INTERSECT or SUBTRACT
+     * @param parallelism the number of threads, 1 to combine on the calling thread; with more, the
+     *                    subtrees of the root's children are combined in parallel
+     * @return the root of the result, or null if it has no words
+     */
+    static Node combine(Node a, Node b, int operation, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        SetOperations op = new SetOperations(operation);
+        List<Node> children = new ArrayList<>();
+        if (parallelism == 1) {
+            op.combineEdges(a, 0, b, 0, children);
+        } else {
+            List<ForkJoinTask<Node>> tasks = new ArrayList<>();
+            Edges aEdges = new Edges(a, 0);
+            Edges bEdges = new Edges(b, 0);
+            while (aEdges.node != null || bEdges.node != null) {
+                Node aNode = aEdges.first() <= bEdges.first() ? aEdges.node : null;
+                Node bNode = bEdges.first() <= aEdges.first() ? bEdges.node : null;
+                tasks.add(ForkJoinTask.adapt(() -> op.combine(aNode, 0, bNode, 0)));
+                if (aNode != null) {
+                    aEdges.next();
+                }
+                if (bNode != null) {
+                    bEdges.next();
+                }
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (ForkJoinTask<Node> task : tasks) {
+                    pool.execute(task);
+                }
+                for (ForkJoinTask<Node> task : tasks) {
+                    Node child = task.join();
+                    if (child != null) {
+                        children.add(child);
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if (children.isEmpty()) {
+            return null;
+        }
+        Node root = new Node(""); // the root keeps its empty label even with a single child
+        root.setChildren(children.toArray(new Node[0]), 0, children.size());
+        root.updateMaxWeight();
+        return root;
+    }
+
+    // ---------- Private helper methods ---------------
+
+    /**
+     * Combines the subtrees below two positions on the same path whose next char is the same
+     * (or below one position, when the other tree doesn't have the path)
+     *
+     * @param a       node of the first tree, or null
+     * @param aOffset number of chars of a's label matched, less than its length
+     * @param b       node of the second tree, or null
+     * @param bOffset number of chars of b's label matched, less than its length
+     * @return the node of the result for the edge starting with the next char, or null if no words are below it
+     */
+    private Node combine(Node a, int aOffset, Node b, int bOffset) {
+        if (b == null) {
+            return operation == INTERSECT ? null : copy(a, aOffset);
+        }
+        if (a == null) {
+            return operation == UNION ? copy(b, bOffset) : null;
+        }
+        int i = aOffset + 1; // the first chars are the same
+        int j = bOffset + 1;
+        while (i < a.prefix.length() && j < b.prefix.length() && a.prefix.charAt(i) == b.prefix.charAt(j)) {
+            i++;
+            j++;
+        }
+        String label = a.prefix.substring(aOffset, i);
+        boolean aWord = i == a.prefix.length() && a.isWord;
+        boolean bWord = j == b.prefix.length() && b.isWord;
+        List<Node> children = new ArrayList<>();
+        combineEdges(a, i, b, j, children);
+
+        boolean isWord = operation == UNION ? aWord || bWord : operation == INTERSECT ? aWord && bWord : aWord && !bWord;
+        if (!isWord && children.size() <= 1) {
+            if (children.isEmpty()) {
+                return null;
+            }
+            Node child = children.get(0); // a node without a word needs 2 children, merge it into its child
+            child.prefix = label + child.prefix;
+            return child;
+        }
+        Node node = new Node(label);
+        node.isWord = isWord;
+        if (isWord) {
+            node.weight = Math.max(aWord ? a.weight : 0, bWord ? b.weight : 0);
+        }
+        node.setChildren(children.toArray(new Node[0]), 0, children.size());
+        node.updateMaxWeight();
+        return node;
+    }
+
+    /* Combines the edges leaving two positions on the same path, pairing edges that start
+     * with the same char, and adds the non-empty results to children in alphabetical order */
+    private void combineEdges(Node a, int aOffset, Node b, int bOffset, List<Node> children) {
+        Edges aEdges = new Edges(a, aOffset);
+        Edges bEdges = new Edges(b, bOffset);
+        while (aEdges.node != null || bEdges.node != null) {
+            Node child;
+            if (aEdges.first() < bEdges.first()) {
+                child = combine(aEdges.node, aEdges.offset, null, 0);
+                aEdges.next();
+            } else if (bEdges.first() < aEdges.first()) {
+                child = combine(null, 0, bEdges.node, bEdges.offset);
+                bEdges.next();
+            } else {
+                child = combine(aEdges.node, aEdges.offset, bEdges.node, bEdges.offset);
+                aEdges.next();
+                bEdges.next();
+            }
+            if (child != null) {
+                children.add(child);
+            }
+        }
+    }
+
+    /* A copy of the subtree below a position, with the label starting at offset */
+    private static Node copy(Node node, int offset) {
+        Node copy = new Node(node.prefix.substring(offset));
+        copy.isWord = node.isWord;
+        copy.weight = node.weight;
+        copy.maxWeight = node.maxWeight;
+        copy.numWords = node.numWords;
+        if (node.numChildren > 0) {
+            Node[] children = new Node[node.numChildren];
+            int n = 0;
+            for (int i = 0; i < node.numSlots(); i++) {
+                if (node.getSlot(i) != null) {
+                    children[n++] = copy(node.getSlot(i), 0);
+                }
+            }
+            copy.setChildren(children, 0, n);
+        }
+        return copy;
+    }
+
+    /* The edges leaving a position in alphabetical order: the rest of the label if it is not
+     * fully matched, otherwise the children. node is null when there are no more edges. */
+    private static final class Edges {
+        private final Node parent; // null if the position is inside a label
+        private int slot; // slot of the current child of parent
+        Node node; // node of the current edge
+        int offset; // where the current edge starts in the label of node
+
+        Edges(Node position, int matched) {
+            if (position != null && matched < position.prefix.length()) {
+                parent = null;
+                node = position;
+                offset = matched;
+            } else {
+                parent = position;
+                slot = -1;
+                next();
+            }
+        }
+
+        /* The first char of the current edge, or Character.MAX_VALUE + 1 when there are none */
+        int first() {
+            return node == null ? Character.MAX_VALUE + 1 : node.prefix.charAt(offset);
+        }
+
+        void next() {
+            node = null;
+            offset = 0;
+            if (parent == null) {
+                return;
+            }
+            while (++slot < parent.numSlots()) {
+                if (parent.getSlot(slot) != null) {
+                    node = parent.getSlot(slot);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package dictionary;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Computes spelling suggestions over any tree layout, so every Dictionary backed
+ * by a compact prefix tree gives the same suggestions for the same words.
+ *
+ * Suggestions are the words with the smallest edit (Levenshtein) distance to the target,
+ * ties broken alphabetically. The search walks the tree depth-first and keeps one row of
+ * the edit distance table per character on the current path, so words that share a prefix
+ * share the work for it. A subtree is skipped as soon as every entry of the row is over
+ * the distance bound, since no word below it can get closer. The bound starts at 1 and
+ * grows until enough words are found; once k words are found, it shrinks to just below
+ * the worst of them.
+ */
+final class Suggester {
+
+    private Suggester() {
+    }
+
+    /**
+     * Returns the numSuggestions words closest to word, ordered by edit distance and then
+     * alphabetically. The caller is responsible for checking whether word itself is in the dictionary.
+     *
+     * @param trie           the tree layout
+     * @param root           the root of the tree, may be null for an empty tree
+     * @param word           the target word, with its case folded like the tree's words
+     * @param numSuggestions the number of suggestions to return
+     * @param transpositions whether swapping two adjacent letters counts as one edit
+     *                       (Damerau-Levenshtein, optimal string alignment) instead of two
+     * @param <N>            the node type of the layout
+     * @return the array with suggestions, shorter than numSuggestions only if the
+     * dictionary has fewer words
+     */
+    static <N> String[] suggest(TrieNavigator<N> trie, N root, String word, int numSuggestions,
+                                boolean transpositions) {
+        return suggest(trie, root, word, numSuggestions, transpositions, null);
+    }
+
+    /**
+     * Same as suggest(trie, root, word, numSuggestions, transpositions), also counting the
+     * nodes the search visits (over all passes).
+     *
+     * @param visited if not null, the number of nodes visited is added to visited[0]
+     */
+    static <N> String[] suggest(TrieNavigator<N> trie, N root, String word, int numSuggestions,
+                                boolean transpositions, long[] visited) {
+        if (root == null || numSuggestions <= 0) {
+            return new String[0];
+        }
+        Search<N> search = new Search<>(trie, word, numSuggestions, transpositions);
+        for (int bound = 1; ; bound++) {
+            search.run(root, bound);
+            if (search.best.size() == numSuggestions || !search.pruned) {
+                if (visited != null) {
+                    visited[0] += search.visited;
+                }
+                return search.results();
+            }
+        }
+    }
+
+    /* A word found by the search and its distance to the target */
+    private static final class Candidate {
+        final String word;
+        final int distance;
+
+        Candidate(String word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+    }
+
+    // closest first, then alphabetical
+    private static final Comparator<Candidate> CLOSEST =
+            Comparator.<Candidate>comparingInt(c -> c.distance).thenComparing(c -> c.word);
+
+    /* State of one suggest call */
+    private static final class Search<N> {
+        final TrieNavigator<N> trie;
+        final char[] target;
+        final int numSuggestions;
+        final boolean transpositions;
+
+        int[][] rows; // rows[i][j] = distance between the first i chars of the path and the first j chars of target
+        char[] path = new char[16]; // chars from the root to the current position
+        final PriorityQueue<Candidate> best; // worst candidate first
+        int bound; // largest distance accepted in this pass
+        boolean pruned; // whether this pass skipped any subtree
+        long visited; // number of nodes visited, over all passes
+
+        Search(TrieNavigator<N> trie, String target, int numSuggestions, boolean transpositions) {
+            this.trie = trie;
+            this.target = target.toCharArray();
+            this.numSuggestions = numSuggestions;
+            this.transpositions = transpositions;
+            rows = new int[16][target.length() + 1];
+            for (int j = 0; j <= target.length(); j++) {
+                rows[0][j] = j;
+            }
+            best = new PriorityQueue<>(Math.min(numSuggestions, 64), CLOSEST.reversed()); // grows if more are found
+        }
+
+        /* Collects the closest words within the bound, starting over */
+        void run(N root, int bound) {
+            this.bound = bound;
+            best.clear();
+            pruned = false;
+            visit(root, 0);
+        }
+
+        /* Largest distance a new candidate may have to be kept */
+        private int limit() {
+            if (best.size() < numSuggestions) {
+                return bound;
+            }
+            // words found later come later alphabetically, so only a smaller distance beats the worst candidate
+            return best.peek().distance - 1;
+        }
+
+        /* Visits node, whose label starts after the first depth chars of the path */
+        private void visit(N node, int depth) {
+            visited++;
+            int length = trie.labelLength(node);
+            for (int i = 0; i < length; i++) {
+                depth++;
+                if (depth == rows.length) {
+                    grow();
+                }
+                path[depth - 1] = trie.labelChar(node, i);
+                if (computeRow(depth) > limit()) {
+                    pruned = true;
+                    return;
+                }
+            }
+            int distance = rows[depth][target.length];
+            if (trie.isWord(node) && distance <= limit()) {
+                if (best.size() == numSuggestions) {
+                    best.poll();
+                }
+                best.add(new Candidate(new String(path, 0, depth), distance));
+            }
+            for (int i = 0; i < trie.numSlots(node); i++) {
+                N child = trie.slot(node, i);
+                if (child != null) {
+                    visit(child, depth);
+                }
+            }
+        }
+
+        /* Fills rows[i] for the path char at index i - 1 and returns the smallest entry of the row */
+        private int computeRow(int i) {
+            int[] previous = rows[i - 1];
+            int[] row = rows[i];
+            int[] beforePrevious = i > 1 ? rows[i - 2] : null;
+            char[] target = this.target;
+            char c = path[i - 1];
+            char previousChar = i > 1 ? path[i - 2] : 0;
+            int left = i;
+            row[0] = left;
+            int min = left;
+            for (int j = 1; j < row.length; j++) {
+                char t = target[j - 1];
+                int distance = Math.min(previous[j - 1] + (t == c ? 0 : 1), Math.min(previous[j], left) + 1);
+                if (transpositions && beforePrevious != null && j > 1 && t == previousChar && target[j - 2] == c) {
+                    distance = Math.min(distance, beforePrevious[j - 2] + 1);
+                }
+                row[j] = distance;
+                left = distance;
+                if (distance < min) {
+                    min = distance;
+                }
+            }
+            return min;
+        }
+
+        private void grow() {
+            int[][] newRows = new int[rows.length * 2][];
+            System.arraycopy(rows, 0, newRows, 0, rows.length);
+            for (int i = rows.length; i < newRows.length; i++) {
+                newRows[i] = new int[target.length + 1];
+            }
+            rows = newRows;
+            path = Arrays.copyOf(path, rows.length);
+        }
+
+        /* The candidates, closest first */
+        String[] results() {
+            String[] results = new String[best.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                results[i] = best.poll().word;
+            }
+            return results;
+        }
+    }
+}
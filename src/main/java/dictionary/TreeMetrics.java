@@ -0,0 +1,120 @@
+package dictionary;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Metrics of a CompactPrefixTree, created by CompactPrefixTree.enableMetrics().
+ * For add, check, checkPrefix and suggest, records the latency of every call and the number
+ * of tree nodes it visited in histograms. Structural statistics of the tree are computed
+ * when asked for. Everything can be read as a MetricsSnapshot or through JMX.
+ */
+public final class TreeMetrics implements TreeMetricsMXBean {
+    final Operation add = new Operation();
+    final Operation check = new Operation();
+    final Operation checkPrefix = new Operation();
+    final Operation suggest = new Operation();
+
+    private final CompactPrefixTree tree;
+    private ObjectName registeredName;
+
+    TreeMetrics(CompactPrefixTree tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Returns the metrics recorded so far, and the current structural statistics of the tree
+     *
+     * @return the snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(getAdd(), getCheck(), getCheckPrefix(), getSuggest(), getTree());
+    }
+
+    public MetricsSnapshot.OperationStats getAdd() {
+        return add.stats();
+    }
+
+    public MetricsSnapshot.OperationStats getCheck() {
+        return check.stats();
+    }
+
+    public MetricsSnapshot.OperationStats getCheckPrefix() {
+        return checkPrefix.stats();
+    }
+
+    public MetricsSnapshot.OperationStats getSuggest() {
+        return suggest.stats();
+    }
+
+    /**
+     * Computes the structural statistics; walks the whole tree, so it must not run during an add
+     */
+    public MetricsSnapshot.TreeStats getTree() {
+        return tree.treeStats();
+    }
+
+    /**
+     * Clears the operation metrics
+     */
+    public void reset() {
+        add.reset();
+        check.reset();
+        checkPrefix.reset();
+        suggest.reset();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as
+     * dictionary:type=CompactPrefixTree,name=(name)
+     *
+     * @param name the name to tell this tree apart from others
+     * @return the name the MBean was registered under
+     * @throws JMException if the name is invalid or already taken
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("dictionary:type=CompactPrefixTree,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes the MBean registered by register, if any
+     *
+     * @throws JMException if it can't be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if (registeredName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registeredName)) {
+                server.unregisterMBean(registeredName);
+            }
+            registeredName = null;
+        }
+    }
+
+    /* The histograms of one operation */
+    static final class Operation {
+        private final Histogram latency = new Histogram();
+        private final Histogram visited = new Histogram();
+
+        void record(long nanos, long nodesVisited) {
+            latency.record(nanos);
+            visited.record(nodesVisited);
+        }
+
+        MetricsSnapshot.OperationStats stats() {
+            return new MetricsSnapshot.OperationStats(latency.count(), latency.mean(), latency.percentile(50),
+                    latency.percentile(90), latency.percentile(99), latency.percentile(99.9), latency.max(),
+                    visited.mean(), visited.percentile(99), visited.max());
+        }
+
+        void reset() {
+            latency.reset();
+            visited.reset();
+        }
+    }
+}
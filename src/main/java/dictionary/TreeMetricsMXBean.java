@@ -0,0 +1,23 @@
+package dictionary;
+
+/**
+ * The JMX view of TreeMetrics. Each operation is a composite attribute with the call count,
+ * latency percentiles (nanoseconds) and nodes visited per call; Tree has the structural statistics.
+ */
+public interface TreeMetricsMXBean {
+
+    MetricsSnapshot.OperationStats getAdd();
+
+    MetricsSnapshot.OperationStats getCheck();
+
+    MetricsSnapshot.OperationStats getCheckPrefix();
+
+    MetricsSnapshot.OperationStats getSuggest();
+
+    MetricsSnapshot.TreeStats getTree();
+
+    /**
+     * Clears the operation metrics
+     */
+    void reset();
+}
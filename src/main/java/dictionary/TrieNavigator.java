@@ -0,0 +1,96 @@
+package dictionary;
+
+/**
+ * Read-only access to the nodes of a compact prefix tree, independent of how
+ * the nodes are stored. Lets algorithms such as suggest run unchanged over
+ * every tree layout.
+ *
+ * @param <N> the type used to refer to a node
+ */
+interface TrieNavigator<N> {
+
+    /**
+     * Returns the label (prefix) stored in the node
+     * @param node the node
+     * @return the label of the node
+     */
+    String label(N node);
+
+    /**
+     * Returns the length of the node's label
+     * @param node the node
+     * @return the number of characters in the label
+     */
+    int labelLength(N node);
+
+    /**
+     * Returns a character of the node's label
+     * @param node the node
+     * @param i the index of the character in the label
+     * @return the character at index i
+     */
+    char labelChar(N node, int i);
+
+    /**
+     * Checks whether the path from the root to this node spells a word
+     * @param node the node
+     * @return true if the node ends a word
+     */
+    boolean isWord(N node);
+
+    /**
+     * Returns the child of the node whose label starts with c
+     * @param node the node
+     * @param c the first character of the child's label
+     * @return the child, or null if there is none
+     */
+    N child(N node, char c);
+
+    /**
+     * Returns the number of child slots of the node, to be used with slot
+     * @param node the node
+     * @return the number of slots
+     */
+    int numSlots(N node);
+
+    /**
+     * Returns the i-th child slot of the node; slots are in alphabetical order
+     * @param node the node
+     * @param i the index of the slot
+     * @return the child in that slot, or null if the slot is empty
+     */
+    N slot(N node, int i);
+
+    /**
+     * Finds the subtree of the words that start with prefix: the first node on the path of
+     * prefix whose label reaches the end of prefix (the label may go on past it)
+     *
+     * @param root   the root of the tree, may be null
+     * @param prefix the prefix, with its case folded
+     * @param above  receives in above[0] the number of chars of prefix matched by the nodes above the subtree
+     * @return the root of the subtree, or null if no word starts with prefix
+     */
+    default N subtree(N root, String prefix, int[] above) {
+        N node = root;
+        int index = 0; // chars of prefix matched by the nodes above node
+        while (node != null && index < prefix.length()) {
+            N child = child(node, prefix.charAt(index));
+            if (child == null) {
+                return null;
+            }
+            int length = Math.min(labelLength(child), prefix.length() - index);
+            for (int i = 1; i < length; i++) {
+                if (labelChar(child, i) != prefix.charAt(index + i)) {
+                    return null;
+                }
+            }
+            node = child;
+            if (index + length == prefix.length()) { // all words below node start with prefix
+                break;
+            }
+            index += length;
+        }
+        above[0] = index;
+        return node;
+    }
+}
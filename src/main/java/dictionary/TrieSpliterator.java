@@ -0,0 +1,230 @@
+package dictionary;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the words of a tree (or of some of its subtrees) in alphabetical order,
+ * for the words() streams and iterators of the trees in this package.
+ *
+ * A spliterator covers a range of sibling subtrees, each with the path of chars above it.
+ * It walks them one after another, depth-first. trySplit hands the first half of the subtrees
+ * not started yet (and the one being walked) to a new spliterator; a single subtree is first
+ * replaced by its children. So a parallel stream gets whole subtrees to work on, and no
+ * words are collected up front.
+ */
+final class TrieSpliterator<N> implements Spliterator<String> {
+    private final TrieNavigator<N> trie;
+    private N[] subtrees; // the subtrees to enumerate are subtrees[lo..hi)
+    private String[] paths; // paths[i] is the chars on the path from the root to subtrees[i], not including its label
+    private int lo;
+    private int hi;
+    private String first; // a word to give before the subtrees, or null
+    private Walk<N> walk; // the subtree being walked (comes before subtrees[lo]), or null
+    private long estimate; // estimated number of words, Long.MAX_VALUE if unknown
+
+    private TrieSpliterator(TrieNavigator<N> trie, N[] subtrees, String[] paths, int lo, int hi,
+                           String first, Walk<N> walk, long estimate) {
+        this.trie = trie;
+        this.subtrees = subtrees;
+        this.paths = paths;
+        this.lo = lo;
+        this.hi = hi;
+        this.first = first;
+        this.walk = walk;
+        this.estimate = estimate;
+    }
+
+    /**
+     * Returns a spliterator over the words that start with prefix
+     *
+     * @param trie     the tree layout
+     * @param root     the root of the tree, may be null for an empty tree
+     * @param prefix   the prefix of the words (case folded), "" for all words
+     * @param estimate the number of words in the tree if known, otherwise Long.MAX_VALUE
+     * @param <N>      the node type of the layout
+     * @return the spliterator
+     */
+    @SuppressWarnings("unchecked")
+    static <N> TrieSpliterator<N> words(TrieNavigator<N> trie, N root, String prefix, long estimate) {
+        int[] above = new int[1];
+        N node = trie.subtree(root, prefix, above);
+        if (node == null) {
+            return new TrieSpliterator<>(trie, (N[]) new Object[0], new String[0], 0, 0, null, null, 0);
+        }
+        return below(trie, node, prefix.substring(0, above[0]), estimate);
+    }
+
+    /**
+     * Returns a spliterator over the words in the subtree of node
+     *
+     * @param trie     the tree layout
+     * @param node     the root of the subtree
+     * @param above    the chars on the path from the root to node, not including its label
+     * @param estimate the number of words if known, otherwise Long.MAX_VALUE
+     * @param <N>      the node type of the layout
+     * @return the spliterator
+     */
+    @SuppressWarnings("unchecked")
+    static <N> TrieSpliterator<N> below(TrieNavigator<N> trie, N node, String above, long estimate) {
+        N[] subtrees = (N[]) new Object[]{node};
+        return new TrieSpliterator<>(trie, subtrees, new String[]{above}, 0, 1, null, null, estimate);
+    }
+
+    /**
+     * Returns a spliterator that gives first, then the words in the subtrees one after another
+     *
+     * @param trie     the tree layout
+     * @param first    a word to give before the subtrees, or null
+     * @param subtrees the subtrees, in alphabetical order of their words
+     * @param paths    paths[i] is the chars on the path from the root to subtrees[i], not including its label
+     * @param estimate the number of words if known, otherwise Long.MAX_VALUE
+     * @param <N>      the node type of the layout
+     * @return the spliterator
+     */
+    static <N> TrieSpliterator<N> of(TrieNavigator<N> trie, String first, N[] subtrees, String[] paths, long estimate) {
+        return new TrieSpliterator<>(trie, subtrees, paths, 0, subtrees.length, first, null, estimate);
+    }
+
+    public boolean tryAdvance(Consumer<? super String> action) {
+        while (true) {
+            if (first != null) {
+                String word = first;
+                first = null;
+                action.accept(word);
+                return true;
+            }
+            if (walk != null) {
+                String word = walk.next();
+                if (word != null) {
+                    action.accept(word);
+                    return true;
+                }
+                walk = null;
+            }
+            if (lo == hi) {
+                return false;
+            }
+            walk = new Walk<>(trie, subtrees[lo], paths[lo]);
+            lo++;
+        }
+    }
+
+    public void forEachRemaining(Consumer<? super String> action) {
+        while (tryAdvance(action)) {
+            // walks the subtrees one after another
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Spliterator<String> trySplit() {
+        if (first == null && walk == null && hi - lo == 1) { // a single subtree: split its children instead
+            N node = subtrees[lo];
+            String path = paths[lo] + trie.label(node);
+            if (trie.isWord(node)) {
+                first = path;
+            }
+            N[] children = (N[]) new Object[trie.numSlots(node)];
+            int n = 0;
+            for (int i = 0; i < trie.numSlots(node); i++) {
+                N child = trie.slot(node, i);
+                if (child != null) {
+                    children[n++] = child;
+                }
+            }
+            String[] childPaths = new String[n];
+            Arrays.fill(childPaths, path);
+            subtrees = children;
+            paths = childPaths;
+            lo = 0;
+            hi = n;
+        }
+        int mid = lo + (hi - lo) / 2;
+        if (lo == hi || (mid == lo && first == null && walk == null)) {
+            return null;
+        }
+        // the new spliterator gets the words that come first; an unknown size (Long.MAX_VALUE)
+        // is halved too, so parallel streams stop splitting after a few levels
+        estimate /= 2;
+        TrieSpliterator<N> prefix = new TrieSpliterator<>(trie, subtrees, paths, lo, mid, first, walk, estimate);
+        first = null;
+        walk = null;
+        lo = mid;
+        return prefix;
+    }
+
+    public long estimateSize() {
+        return first == null && walk == null && lo == hi ? 0 : estimate;
+    }
+
+    public int characteristics() {
+        return ORDERED | SORTED | DISTINCT | NONNULL;
+    }
+
+    public Comparator<? super String> getComparator() {
+        return null; // alphabetical (String.compareTo) order
+    }
+
+    /* A depth-first walk over one subtree, giving its words in order */
+    private static final class Walk<N> {
+        private final TrieNavigator<N> trie;
+        private Object[] nodes = new Object[16]; // the nodes on the path to the current node
+        private int[] nextSlot = new int[16]; // the next child slot to visit for each node on the path
+        private int[] ends = new int[16]; // length of the path including each node's label
+        private int depth; // number of nodes on the path
+        private char[] path; // the chars from the root to the current node
+
+        Walk(TrieNavigator<N> trie, N subtree, String above) {
+            this.trie = trie;
+            path = Arrays.copyOf(above.toCharArray(), Math.max(32, above.length() * 2));
+            push(subtree, above.length());
+        }
+
+        /* Returns the next word, or null when the subtree is done */
+        @SuppressWarnings("unchecked")
+        String next() {
+            while (depth > 0) {
+                int top = depth - 1;
+                N node = (N) nodes[top];
+                if (nextSlot[top] == -1) { // just entered the node
+                    nextSlot[top] = 0;
+                    if (trie.isWord(node)) {
+                        return new String(path, 0, ends[top]);
+                    }
+                }
+                if (nextSlot[top] == trie.numSlots(node)) {
+                    nodes[top] = null;
+                    depth--;
+                    continue;
+                }
+                N child = trie.slot(node, nextSlot[top]++);
+                if (child != null) {
+                    push(child, ends[top]);
+                }
+            }
+            return null;
+        }
+
+        /* Enters node, whose label starts at index start of the path */
+        private void push(N node, int start) {
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                nextSlot = Arrays.copyOf(nextSlot, depth * 2);
+                ends = Arrays.copyOf(ends, depth * 2);
+            }
+            int length = trie.labelLength(node);
+            if (start + length > path.length) {
+                path = Arrays.copyOf(path, (start + length) * 2);
+            }
+            for (int i = 0; i < length; i++) {
+                path[start + i] = trie.labelChar(node, i);
+            }
+            nodes[depth] = node;
+            nextSlot[depth] = -1;
+            ends[depth] = start + length;
+            depth++;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import dictionary.CachingDictionary;
+import dictionary.CompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test file for CachingDictionary */
+public class CachingDictionaryTest {
+
+    @Test
+    public void testCachedSuggestionsMatchDictionary() {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        CachingDictionary cache = new CachingDictionary(tree, 100);
+        String[] typos = {"definately", "recieve", "seperate", "Recieve", "teh", "definately"};
+        for (String typo : typos) {
+            Assert.assertArrayEquals(tree.suggest(typo, 4), cache.suggest(typo, 4));
+        }
+        Assert.assertEquals(4, cache.missCount());
+        Assert.assertEquals(2, cache.hitCount()); // "Recieve" is normalized to the cached "recieve"
+
+        Assert.assertArrayEquals(new String[]{"apple"}, cache.suggest("apple", 4));
+        Assert.assertEquals(6, cache.missCount() + cache.hitCount());
+    }
+
+    @Test
+    public void testAddInvalidatesAffectedSuggestions() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : new String[]{"apple", "maple", "zebra", "zebras"}) {
+            tree.add(word);
+        }
+        CachingDictionary cache = new CachingDictionary(tree, 100);
+        Assert.assertArrayEquals(new String[]{"apple"}, cache.suggest("appel", 1));
+        Assert.assertArrayEquals(new String[]{"zebra"}, cache.suggest("zebr", 1));
+
+        cache.add("appels"); // distance 1 from "appel", closer than "apple"
+        Assert.assertEquals(1, cache.invalidationCount()); // "zebr" is too far to change
+        Assert.assertArrayEquals(new String[]{"appels"}, cache.suggest("appel", 1));
+        Assert.assertArrayEquals(new String[]{"zebra"}, cache.suggest("zebr", 1));
+        Assert.assertEquals(1, cache.hitCount());
+
+        cache.add("appel");
+        Assert.assertArrayEquals(new String[]{"appel"}, cache.suggest("appel", 1));
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveEviction() {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        CachingDictionary cache = new CachingDictionary(tree, 2);
+        for (int i = 0; i < 5; i++) {
+            cache.suggest("recieve", 3);
+            cache.suggest("seperate", 3);
+        }
+        for (String typo : new String[]{"abcq", "bcdq", "cdeq", "defq"}) { // each seen once
+            cache.suggest(typo, 3);
+        }
+        Assert.assertEquals(2, cache.size());
+        long hits = cache.hitCount();
+        cache.suggest("recieve", 3);
+        cache.suggest("seperate", 3);
+        Assert.assertEquals(hits + 2, cache.hitCount());
+
+        for (int i = 0; i < 20; i++) { // a new typo becomes frequent and replaces one of them
+            cache.suggest("wierd", 3);
+        }
+        Assert.assertEquals(1, cache.evictionCount());
+        Assert.assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,111 @@
+import dictionary.CaseFolding;
+import dictionary.CompactPrefixTree;
+import dictionary.MappedCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/** Test file for words outside a-z and for the case folding of the dictionaries. */
+public class CaseFoldingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testUnicodeWords() throws IOException {
+        String[] words = {"naïve", "o'clock", "e-mail", "3d", "Ärger", "İstanbul", "straße", "ΣΟΦΙΑ", "日本語", "cat"};
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : words) {
+            tree.add(word);
+        }
+        Path file = folder.getRoot().toPath().resolve("unicode.cptd");
+        tree.save(file);
+        MappedCompactPrefixTree mapped = MappedCompactPrefixTree.load(file);
+        for (String word : words) {
+            Assert.assertTrue(word, tree.check(word));
+            Assert.assertTrue(word, tree.freeze().check(word));
+            Assert.assertTrue(word, tree.minimize().check(word));
+            Assert.assertTrue(word, mapped.check(word));
+            Assert.assertTrue(word, tree.checkPrefix(word.substring(0, 2)));
+        }
+        // "İ" folds to a single "i", so the word is found however it is written
+        Assert.assertTrue(tree.check("istanbul"));
+        Assert.assertTrue(tree.check("ISTANBUL"));
+        Assert.assertTrue(tree.check("ärger"));
+        Assert.assertTrue(tree.check("σοφια"));
+        Assert.assertEquals(Arrays.asList("3d", "cat", "e-mail", "istanbul", "naïve", "o'clock", "straße", "ärger",
+                "σοφια", "日本語"), tree.words().collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList("naïve", "cat"), Arrays.asList(tree.suggest("naive", 2)));
+    }
+
+    @Test
+    public void testManyChildrenOutsideAZ() {
+        // Cyrillic children of one node are indexed densely, mixed alphabets are kept sorted
+        CompactPrefixTree tree = new CompactPrefixTree();
+        TreeSet<String> expected = new TreeSet<>();
+        List<String> words = new ArrayList<>();
+        for (char c = 'а'; c <= 'я'; c++) {
+            words.add("x" + c + "ы");
+            words.add(c + "-" + (char) (c - 'а' + 'a'));
+        }
+        for (char c = 'α'; c <= 'ω'; c++) {
+            if (c != 'ς') { // final sigma: its uppercase folds to σ
+                words.add("y" + c);
+            }
+        }
+        Random random = new Random(21);
+        for (int i = 0; i < 3 * words.size(); i++) {
+            String word = words.get(random.nextInt(words.size()));
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(word, expected.remove(word), tree.remove(word));
+            } else {
+                tree.add(word);
+                expected.add(word);
+            }
+            Assert.assertEquals(new ArrayList<>(expected), tree.words().collect(Collectors.toList()));
+        }
+        for (String word : words) {
+            Assert.assertEquals(word, expected.contains(word), tree.check(word));
+            Assert.assertEquals(word, expected.contains(word), tree.freeze().check(word.toUpperCase()));
+        }
+    }
+
+    @Test
+    public void testFoldings() throws IOException {
+        CompactPrefixTree turkish = new CompactPrefixTree(CaseFolding.of(Locale.forLanguageTag("tr")));
+        turkish.add("IRMAK");
+        turkish.add("İzmir");
+        Assert.assertEquals(Arrays.asList("izmir", "ırmak"), turkish.words().collect(Collectors.toList()));
+        Assert.assertTrue(turkish.check("ırmak"));
+        Assert.assertFalse(turkish.check("irmak"));
+        Assert.assertTrue(turkish.check("İZMİR"));
+        Path file = folder.getRoot().toPath().resolve("turkish.cptd");
+        turkish.save(file);
+        MappedCompactPrefixTree mapped = MappedCompactPrefixTree.load(file);
+        Assert.assertEquals(turkish.getFolding(), mapped.getFolding());
+        Assert.assertTrue(mapped.check("IRMAK"));
+        Assert.assertFalse(mapped.check("irmak"));
+
+        CompactPrefixTree exact = new CompactPrefixTree(CaseFolding.NONE);
+        exact.add("iPhone");
+        exact.add("IPHONE");
+        Assert.assertEquals(Arrays.asList("IPHONE", "iPhone"), exact.words().collect(Collectors.toList()));
+        Assert.assertTrue(exact.check("iPhone"));
+        Assert.assertFalse(exact.check("iphone"));
+        Assert.assertFalse(exact.freeze().checkPrefix("ip"));
+
+        Assert.assertSame(CaseFolding.LOWER, CaseFolding.of(Locale.GERMAN));
+        Assert.assertEquals("istanbul", CaseFolding.LOWER.fold("İSTANBUL"));
+    }
+}
@@ -0,0 +1,87 @@
+import dictionary.CompactPrefixTree;
+import dictionary.CompactPrefixTreeBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/** Test file for CompactPrefixTreeBuilder: the one-pass build must give the same tree as adding words one by one. */
+public class CompactPrefixTreeBuilderTest {
+
+    @Test
+    public void testMatchesExpectedWordsTree() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        CompactPrefixTree tree = new CompactPrefixTreeBuilder().addAll(words).build();
+
+        String output = "src/test/java" + File.separator + "builderWordsTree";
+        tree.printTree(output);
+        Path actual = Paths.get(output);
+        Path expected = Paths.get("src/test/java" + File.separator + "expectedWordsTree");
+        if (TestUtils.checkFiles(expected, actual) <= 0) {
+            Assert.fail(" File check failed, files are different");
+        }
+        Files.delete(actual);
+    }
+
+    @Test
+    public void testMatchesRepeatedAdd() {
+        String[] words = {"cat", "ape", "apple", "cart", "cats", "cat", "demon", "dog", "demons", "Dog", "a", "ap"};
+        CompactPrefixTree added = new CompactPrefixTree();
+        for (String word : words) {
+            added.add(word);
+        }
+        List<String> sorted = new ArrayList<>();
+        for (String word : words) {
+            sorted.add(word.toLowerCase());
+        }
+        Collections.sort(sorted);
+
+        Assert.assertEquals(added.toString(), new CompactPrefixTreeBuilder().addAll(sorted).build().toString());
+    }
+
+    @Test
+    public void testUnsortedInput() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        List<String> sample = new ArrayList<>(words.subList(0, 5000));
+        CompactPrefixTree added = new CompactPrefixTree();
+        for (String word : sample) {
+            added.add(word);
+        }
+        // sorted at first, then shuffled, so the builder has to switch to sorting halfway
+        List<String> shuffled = new ArrayList<>(sample.subList(2500, 5000));
+        Collections.shuffle(shuffled, new Random(7));
+        List<String> input = new ArrayList<>(sample.subList(0, 2500));
+        input.addAll(shuffled);
+        input.add(sample.get(10)); // duplicate
+
+        Assert.assertEquals(added.toString(), new CompactPrefixTreeBuilder().addAll(input).build().toString());
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        String filename = "input/words_ospd.txt";
+        String expected = new CompactPrefixTree(filename).toString();
+        Assert.assertEquals(expected, new CompactPrefixTree(filename, 1).toString());
+        Assert.assertEquals(expected, new CompactPrefixTree(filename, 4).toString());
+
+        List<String> words = Files.readAllLines(Paths.get(filename));
+        Collections.shuffle(words, new Random(3));
+        Assert.assertEquals(expected, CompactPrefixTreeBuilder.buildParallel(words, 3).toString());
+        Assert.assertEquals("", CompactPrefixTreeBuilder.buildParallel(new ArrayList<>(), 2).toString());
+    }
+
+    @Test
+    public void testEmpty() {
+        CompactPrefixTree tree = new CompactPrefixTreeBuilder().add("").build();
+        Assert.assertEquals("", tree.toString());
+        Assert.assertFalse(tree.check("a"));
+    }
+}
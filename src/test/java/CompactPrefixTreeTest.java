@@ -1,5 +1,7 @@
 import dictionary.CompactPrefixTree;
+import dictionary.CompactPrefixTreeBuilder;
 import dictionary.Dictionary;
+import dictionary.FrozenCompactPrefixTree;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -7,8 +9,18 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 
 /** Test file for CompactPrefixTree class.
@@ -124,6 +136,32 @@ public class CompactPrefixTreeTest {
             Assert.fail(" File check failed, files are different" );
     }
 
+    @Test
+    public void testAddGrowsNodeLayouts() {
+        // adds children in reverse order so nodes move from leaf to 4, 16 and 26 slots
+        CompactPrefixTree tree = new CompactPrefixTree();
+        CompactPrefixTree sorted = new CompactPrefixTree();
+        for (char c = 'z'; c >= 'a'; c--) {
+            tree.add("q" + c + "x");
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            sorted.add("q" + c + "x");
+        }
+        Assert.assertEquals(sorted.toString(), tree.toString());
+        for (char c = 'a'; c <= 'z'; c++) {
+            Assert.assertTrue(tree.check("q" + c + "x"));
+            Assert.assertFalse(tree.check("q" + c));
+            Assert.assertTrue(tree.checkPrefix("q" + c));
+        }
+
+        // a word that is a prefix of an existing node splits that node
+        tree.add("cats");
+        tree.add("cat");
+        Assert.assertTrue(tree.check("cat"));
+        Assert.assertTrue(tree.check("cats"));
+        Assert.assertFalse(tree.check("ca"));
+    }
+
     @Test
     public void testCheckSmallDictionary() {
         Dictionary d = new CompactPrefixTree();
@@ -175,6 +213,124 @@ public class CompactPrefixTreeTest {
         }
     }
 
+    @Test
+    public void testCheckRegionsWithoutAllocation() {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        Dictionary frozen = tree.freeze();
+        StringBuilder text = new StringBuilder("The Cat sat on a Mat, then Xyzzy ran");
+        int[][] words = {{0, 3}, {4, 7}, {8, 11}, {15, 16}, {17, 20}, {27, 32}};
+        boolean[] expected = new boolean[words.length];
+        for (int i = 0; i < words.length; i++) {
+            String word = text.substring(words[i][0], words[i][1]);
+            expected[i] = tree.check(word);
+            Assert.assertEquals(word, expected[i], tree.check(text, words[i][0], words[i][1]));
+            Assert.assertEquals(word, expected[i], ((FrozenCompactPrefixTree) frozen).check(text, words[i][0], words[i][1]));
+            int prefixLength = Math.min(2, word.length());
+            Assert.assertEquals(word, tree.checkPrefix(word.substring(0, prefixLength)),
+                    tree.checkPrefix(text, words[i][0], words[i][0] + prefixLength));
+        }
+        Assert.assertTrue(tree.checkPrefix(text, 5, 5));
+        Assert.assertFalse(tree.check(text, 28, 31)); // "yzz"
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        int found = 0;
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int n = 0; n < 100000; n++) {
+            int[] word = words[n % words.length];
+            if (tree.check(text, word[0], word[1]) && tree.checkPrefix(text, word[0], word[1] - 1)) {
+                found++;
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        Assert.assertTrue(found > 0);
+        Assert.assertTrue("Lookups allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    @Test
+    public void testSuggestionsAreClosestWords() throws IOException {
+        String filename = "input/words_ospd.txt";
+        CompactPrefixTree tree = new CompactPrefixTree(filename);
+        List<String> words = Files.readAllLines(Paths.get(filename));
+
+        String[] badWords = {"teh", "accer", "fatte", "flox", "forsoom", "qzx", "recieve", "Wrods"};
+        for (String word : badWords) {
+            for (boolean transpositions : new boolean[]{false, true}) {
+                // brute force: the 5 words with the smallest distance, then alphabetical
+                String target = word.toLowerCase();
+                List<String> expected = new ArrayList<>(words);
+                expected.sort(Comparator.<String>comparingInt(w -> distance(target, w, transpositions))
+                        .thenComparing(w -> w));
+                Assert.assertEquals(word, expected.subList(0, 5),
+                        Arrays.asList(tree.suggest(word, 5, transpositions)));
+            }
+        }
+        Assert.assertEquals(0, new CompactPrefixTree().suggest("cat", 3).length);
+
+        // a count larger than the dictionary returns every word, closest first
+        CompactPrefixTree small = new CompactPrefixTree();
+        for (String word : new String[]{"cat", "car", "zoo"}) {
+            small.add(word);
+        }
+        Assert.assertEquals(Arrays.asList("zoo", "car", "cat"), Arrays.asList(small.suggest("zzz", Integer.MAX_VALUE)));
+        Assert.assertEquals(3, small.freeze().suggest("zzz", Integer.MAX_VALUE).length);
+    }
+
+    @Test
+    public void testCheckAllMatchesCheck() throws IOException {
+        String filename = "input/words_ospd.txt";
+        CompactPrefixTree tree = new CompactPrefixTree(filename);
+        FrozenCompactPrefixTree frozen = tree.freeze();
+
+        List<String> queries = new ArrayList<>();
+        for (String word : Files.readAllLines(Paths.get(filename))) {
+            if (word.hashCode() % 7 == 0) {
+                queries.add(word);
+                queries.add(word.substring(0, word.length() - 1)); // mostly not words
+                queries.add(word.toUpperCase() + "s");
+            }
+        }
+        queries.add("");
+        queries.add("cat");
+        queries.add("cat"); // duplicate
+        queries.add("qqq");
+        Collections.shuffle(queries, new Random(1));
+
+        boolean[] found = tree.checkAll(queries);
+        boolean[] frozenFound = frozen.checkAll(queries);
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertEquals(queries.get(i), tree.check(queries.get(i)), found[i]);
+            Assert.assertEquals(queries.get(i), found[i], frozenFound[i]);
+        }
+
+        List<String> batch = Arrays.asList("teh", "cat", "flox", "teh", "Cat", "accer");
+        String[][] suggestions = tree.suggestAll(batch, NUM_SUGGESTIONS);
+        for (int i = 0; i < batch.size(); i++) {
+            Assert.assertEquals(Arrays.asList(tree.suggest(batch.get(i), NUM_SUGGESTIONS)), Arrays.asList(suggestions[i]));
+        }
+        Assert.assertArrayEquals(new boolean[batch.size()], new CompactPrefixTree().checkAll(batch));
+    }
+
+    /* Levenshtein distance, with adjacent transpositions (optimal string alignment) if requested */
+    private static int distance(String a, String b, boolean transpositions) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                    continue;
+                }
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                if (transpositions && i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+                        && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
     @Test
     /** Note: this method does not check whether your suggestions are reasonable.
      * It just checks the number of suggestions and whether each suggestion is a
@@ -220,5 +376,85 @@ public class CompactPrefixTreeTest {
 
     }
 
-}
+    @Test
+    public void testWordStreams() throws IOException {
+        TreeSet<String> expected = new TreeSet<>();
+        for (String word : Files.readAllLines(Paths.get("input/words_ospd.txt"))) {
+            expected.add(word.toLowerCase());
+        }
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        List<String> all = new ArrayList<>(expected);
+
+        Assert.assertEquals(all, tree.words().collect(Collectors.toList()));
+        Assert.assertEquals(all, tree.words().parallel().collect(Collectors.toList()));
+        List<String> iterated = new ArrayList<>();
+        for (String word : tree) {
+            iterated.add(word);
+        }
+        Assert.assertEquals(all, iterated);
+        Assert.assertEquals(all, tree.freeze().words().parallel().collect(Collectors.toList()));
+
+        for (String prefix : new String[]{"dem", "Q", "zyz", "abac", "xx"}) {
+            List<String> withPrefix = all.stream().filter(w -> w.startsWith(prefix.toLowerCase()))
+                    .collect(Collectors.toList());
+            Assert.assertEquals(prefix, withPrefix, tree.words(prefix).collect(Collectors.toList()));
+            Assert.assertEquals(prefix, withPrefix, tree.words(prefix).parallel().collect(Collectors.toList()));
+        }
+    }
 
+    @Test
+    public void testPrintTreeToAppendable() throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        StringBuilder sb = new StringBuilder();
+        tree.printTree(sb);
+        String expected = new String(Files.readAllBytes(Paths.get("src/test/java/expectedWordsTree")));
+        Assert.assertEquals(expected, sb.toString());
+        Assert.assertEquals(expected, tree.toString());
+    }
+
+    @Test
+    public void testRemove() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : new String[]{"cat", "cart", "carts", "dog"}) {
+            tree.add(word);
+        }
+        Assert.assertFalse(tree.remove("ca"));
+        Assert.assertFalse(tree.remove("cow"));
+        Assert.assertTrue(tree.remove("Cart")); // "rt" is no longer a word and has one child: merged into "rts"
+        Assert.assertFalse(tree.check("cart"));
+        Assert.assertTrue(tree.check("carts"));
+        Assert.assertEquals("\n ca\n  rts*\n  t*\n dog*\n", tree.toString());
+
+        Assert.assertTrue(tree.remove("carts")); // "rts" is deleted, then "ca" is merged with "t"
+        Assert.assertEquals("\n cat*\n dog*\n", tree.toString());
+
+        Assert.assertTrue(tree.remove("cat"));
+        Assert.assertTrue(tree.remove("dog"));
+        Assert.assertEquals("", tree.toString());
+        Assert.assertFalse(tree.checkPrefix("d"));
+        tree.add("dog");
+        Assert.assertTrue(tree.check("dog"));
+    }
+
+    @Test
+    public void testChurnMatchesRebuiltTree() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt")).subList(20000, 24000);
+        Random random = new Random(11);
+        TreeSet<String> present = new TreeSet<>();
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (int i = 1; i <= 40000; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            if (random.nextBoolean()) {
+                tree.add(word);
+                present.add(word);
+            } else {
+                Assert.assertEquals(present.remove(word), tree.remove(word));
+            }
+            if (i % 5000 == 0) {
+                CompactPrefixTree rebuilt = new CompactPrefixTreeBuilder().addAll(present).build();
+                Assert.assertEquals(rebuilt.toString(), tree.toString());
+                Assert.assertEquals(rebuilt.treeStats().getEstimatedBytes(), tree.treeStats().getEstimatedBytes());
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import dictionary.CompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/** Test file for the weighted top-k completion of CompactPrefixTree */
+public class CompletionTest {
+
+    private static CompactPrefixTree weightedTree() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        tree.add("the", 100);
+        tree.add("then", 50);
+        tree.add("theory", 70);
+        tree.add("thermal", 5);
+        tree.add("this", 80);
+        tree.add("thin", 10);
+        tree.add("a", 1);
+        return tree;
+    }
+
+    @Test
+    public void testComplete() {
+        CompactPrefixTree tree = weightedTree();
+        Assert.assertArrayEquals(new String[]{"the", "this", "theory"}, tree.complete("th", 3));
+        Assert.assertArrayEquals(new String[]{"the", "theory", "then", "thermal"}, tree.complete("The", 10));
+        Assert.assertArrayEquals(new String[]{"thermal"}, tree.complete("therm", 5)); // ends inside the label "rmal"
+        Assert.assertArrayEquals(new String[]{"the", "this"}, tree.complete("", 2));
+        Assert.assertArrayEquals(new String[0], tree.complete("x", 3));
+        Assert.assertArrayEquals(new String[0], tree.complete("th", 0));
+    }
+
+    @Test
+    public void testWeightsFollowChanges() {
+        CompactPrefixTree tree = weightedTree();
+        tree.add("the", 1); // lower the weight
+        Assert.assertArrayEquals(new String[]{"this", "theory"}, tree.complete("th", 2));
+        Assert.assertTrue(tree.remove("this"));
+        Assert.assertArrayEquals(new String[]{"theory"}, tree.complete("th", 1));
+        tree.add("this"); // added again without a weight
+        Assert.assertArrayEquals(new String[]{"theory", "then", "thin", "thermal", "the", "this"},
+                tree.complete("th", 10));
+        tree.add("thirst"); // splits "is" below "th", which must keep the largest weight below it
+        Assert.assertArrayEquals(new String[]{"thin"}, tree.complete("thi", 1));
+    }
+
+    @Test
+    public void testUnweightedWordsInAlphabeticalOrder() {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        List<String> expected = tree.words("pre").limit(20).collect(Collectors.toList());
+        Assert.assertEquals(expected, Arrays.asList(tree.complete("pre", 20)));
+    }
+
+    @Test
+    public void testMatchesSortedWords() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        Random random = new Random(15);
+        Map<String, Long> weights = new HashMap<>();
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : words.subList(0, 20000)) {
+            long weight = random.nextInt(1000);
+            weights.put(word, weight);
+            tree.add(word, weight);
+        }
+        Comparator<String> byWeight = Comparator.<String>comparingLong(weights::get).reversed()
+                .thenComparing(Comparator.naturalOrder());
+        for (int i = 0; i < 200; i++) {
+            String word = words.get(random.nextInt(20000));
+            String prefix = word.substring(0, random.nextInt(Math.min(word.length(), 4) + 1));
+            int k = 1 + random.nextInt(20);
+            List<String> expected = weights.keySet().stream().filter(w -> w.startsWith(prefix))
+                    .sorted(byWeight).limit(k).collect(Collectors.toList());
+            Assert.assertEquals(prefix, expected, Arrays.asList(tree.complete(prefix, k)));
+        }
+    }
+
+    @Test
+    public void testWeightedFile() throws IOException {
+        Path file = Files.createTempFile("weighted", ".txt");
+        try {
+            Files.write(file, Arrays.asList("the\t100", "this\t80", "", "thin", "Theory\t70"));
+            CompactPrefixTree tree = CompactPrefixTree.fromWeightedFile(file);
+            Assert.assertArrayEquals(new String[]{"the", "this", "theory", "thin"}, tree.complete("th", 5));
+
+            Files.write(file, Arrays.asList("the\t100", "this\tmany"));
+            try {
+                CompactPrefixTree.fromWeightedFile(file);
+                Assert.fail("expected an IOException for a bad count");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains(":2:"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
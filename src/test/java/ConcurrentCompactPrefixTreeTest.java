@@ -0,0 +1,138 @@
+import dictionary.CompactPrefixTree;
+import dictionary.ConcurrentCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/** Test file for ConcurrentCompactPrefixTree: readers running while a writer changes the tree. */
+public class ConcurrentCompactPrefixTreeTest {
+
+    @Test
+    public void testSameTreeAsCompactPrefixTree() {
+        String[] words = {"cat", "ape", "apple", "cart", "cats", "cat", "demon", "dog", "demons", "Dog", "a", "ap"};
+        CompactPrefixTree expected = new CompactPrefixTree();
+        ConcurrentCompactPrefixTree tree = new ConcurrentCompactPrefixTree();
+        for (String word : words) {
+            expected.add(word);
+            tree.add(word);
+        }
+        Assert.assertEquals(expected.toString(), tree.toString());
+
+        tree.addAll(Arrays.asList("apex", "Do", "capsule"));
+        expected.add("apex");
+        expected.add("do");
+        expected.add("capsule");
+        Assert.assertEquals(expected.toString(), tree.toString());
+    }
+
+    @Test
+    public void testReadersDuringWrites() throws Exception {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled, new Random(9));
+        List<String> initial = shuffled.subList(0, words.size() / 2);
+        List<String> added = shuffled.subList(words.size() / 2, words.size());
+
+        ConcurrentCompactPrefixTree tree = new ConcurrentCompactPrefixTree();
+        tree.addAll(initial);
+        AtomicInteger numAdded = new AtomicInteger(); // added.get(i) is visible for every i < numAdded
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            long seed = r;
+            readers[r] = new Thread(() -> {
+                Random random = new Random(seed);
+                while (numAdded.get() < added.size() && failure.get() == null) {
+                    int n = numAdded.get();
+                    String old = initial.get(random.nextInt(initial.size()));
+                    if (!tree.check(old) || !tree.checkPrefix(old.substring(0, 1 + random.nextInt(old.length())))) {
+                        failure.set("lost " + old);
+                    }
+                    if (n > 0) {
+                        String fresh = added.get(random.nextInt(n));
+                        if (!tree.check(fresh)) {
+                            failure.set("not visible after add: " + fresh);
+                        }
+                    }
+                    if (tree.check(old + "qzx")) {
+                        failure.set("found a word never added: " + old + "qzx");
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        for (String word : added) {
+            tree.add(word);
+            numAdded.incrementAndGet();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Assert.assertNull(failure.get());
+        for (String word : words) {
+            Assert.assertTrue(word, tree.check(word));
+        }
+        CompactPrefixTree expected = new CompactPrefixTree("input/words_ospd.txt");
+        Assert.assertEquals(expected.toString(), tree.toString());
+    }
+
+    @Test
+    public void testRemoveDoesNotChangeOlderVersions() {
+        ConcurrentCompactPrefixTree tree = new ConcurrentCompactPrefixTree();
+        tree.addAll(Arrays.asList("cat", "cart", "carts", "dog"));
+        Iterator<String> before = tree.iterator(); // enumerates the version before the removals
+
+        Assert.assertTrue(tree.remove("carts"));
+        Assert.assertTrue(tree.remove("cart"));
+        Assert.assertFalse(tree.remove("cart"));
+        Assert.assertEquals("\n cat*\n dog*\n", tree.toString());
+
+        List<String> old = new ArrayList<>();
+        before.forEachRemaining(old::add);
+        Assert.assertEquals(Arrays.asList("cart", "carts", "cat", "dog"), old);
+    }
+
+    @Test
+    public void testBatchWithDuplicates() {
+        ConcurrentCompactPrefixTree tree = new ConcurrentCompactPrefixTree();
+        tree.addAll(Arrays.asList("cat", "cat", "Cat", "car"));
+        Assert.assertEquals(2, tree.numWords());
+        Assert.assertEquals(2, tree.countPrefix("ca"));
+        Assert.assertEquals("\n ca\n  r*\n  t*\n", tree.toString());
+        tree.addAll(Arrays.asList("CAR", "cars", "Cars"));
+        Assert.assertEquals(3, tree.numWords());
+        Assert.assertEquals(Arrays.asList("car", "cars", "cat"), tree.freeze().words().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testChurnMatchesCompactPrefixTree() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt")).subList(30000, 32000);
+        Random random = new Random(5);
+        CompactPrefixTree expected = new CompactPrefixTree();
+        ConcurrentCompactPrefixTree tree = new ConcurrentCompactPrefixTree();
+        for (int i = 0; i < 20000; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            if (random.nextBoolean()) {
+                expected.add(word);
+                tree.add(word);
+            } else {
+                Assert.assertEquals(expected.remove(word), tree.remove(word));
+            }
+        }
+        Assert.assertEquals(expected.toString(), tree.toString());
+    }
+}
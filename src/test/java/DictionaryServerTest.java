@@ -0,0 +1,82 @@
+import dictionary.CompactPrefixTree;
+import dictionary.DictionaryServer;
+import dictionary.LoadGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/** Test file for DictionaryServer and LoadGenerator, over loopback sockets. */
+public class DictionaryServerTest {
+
+    private static CompactPrefixTree smallTree() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : new String[]{"cat", "cart", "dog", "dot"}) {
+            tree.add(word);
+        }
+        return tree;
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        CompactPrefixTree tree = smallTree();
+        try (DictionaryServer server = new DictionaryServer(tree.freeze(), 0, 4);
+             Socket socket = new Socket(server.address().getAddress(), server.address().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            // all requests are written before any response is read
+            out.write(("CHECK cat\nCHECK Cat cow dot\r\nPREFIX ca x\nSUGGEST 2 cst\nsuggest 2\nFOO bar\n\nCHECK\nQUIT\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            Assert.assertEquals("1", in.readLine());
+            Assert.assertEquals("1 0 1", in.readLine());
+            Assert.assertEquals("1 0", in.readLine());
+            Assert.assertEquals(String.join(" ", tree.suggest("cst", 2)), in.readLine());
+            Assert.assertEquals("ERR usage: SUGGEST k word", in.readLine());
+            Assert.assertEquals("ERR unknown command FOO", in.readLine());
+            Assert.assertEquals("ERR empty request", in.readLine());
+            Assert.assertEquals("ERR CHECK needs at least one word", in.readLine());
+            Assert.assertNull(in.readLine()); // closed after QUIT
+        }
+    }
+
+    @Test
+    public void testLineTooLong() throws IOException {
+        try (DictionaryServer server = new DictionaryServer(smallTree(), 0, 4);
+             Socket socket = new Socket(server.address().getAddress(), server.address().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            byte[] line = new byte[100000];
+            Arrays.fill(line, (byte) 'a');
+            out.write("CHECK dog\nCHECK ".getBytes(StandardCharsets.UTF_8));
+            out.write(line);
+            out.flush();
+            Assert.assertEquals("1", in.readLine());
+            Assert.assertTrue(in.readLine().startsWith("ERR line longer than"));
+            Assert.assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    public void testLoadGenerator() throws Exception {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        words.add("");
+        words.add("  "); // blank lines are skipped
+        try (DictionaryServer server = new DictionaryServer(new CompactPrefixTree("input/words_ospd.txt").freeze(), 0, 2)) {
+            // more connections than the server serves at once: the others wait for a free slot
+            LoadGenerator.Report report = LoadGenerator.run(server.address(), words, 4, 300_000_000L, 8);
+            Assert.assertTrue(report.toString(), report.getRequests() > 0);
+            Assert.assertEquals(0, report.getErrors());
+            Assert.assertTrue(report.getP50Nanos() <= report.getP99Nanos());
+        }
+    }
+}
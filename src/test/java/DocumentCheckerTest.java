@@ -0,0 +1,104 @@
+import dictionary.CompactPrefixTree;
+import dictionary.DocumentChecker;
+import dictionary.FrozenCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/** Test file for DocumentChecker: the misspelled words of a file, whatever the chunk size. */
+public class DocumentCheckerTest {
+
+    private static String describe(DocumentChecker.Misspelling misspelling) {
+        return misspelling.getOffset() + ":" + misspelling.getWord();
+    }
+
+    @Test
+    public void testMisspellings() throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : "the quick brown fox jumps over lazy dogs end".split(" ")) {
+            tree.add(word);
+        }
+        Path file = Files.createTempFile("document", ".txt");
+        try {
+            // offsets are in bytes; "naïve" is not in the dictionary and is decoded from UTF-8
+            Files.write(file, "The quick brwn fox,\njumpd over 12 lazy dogs.\nnaïve end".getBytes(StandardCharsets.UTF_8));
+            List<String> expected = Arrays.asList("10:brwn", "20:jumpd", "45:naïve");
+            for (int chunkSize : new int[]{1, 3, 7, 1 << 20}) {
+                DocumentChecker checker = new DocumentChecker(tree, 2, chunkSize);
+                Assert.assertEquals(expected, checker.misspellings(file).map(DocumentCheckerTest::describe)
+                        .collect(Collectors.toList()));
+                List<DocumentChecker.Misspelling> found = new ArrayList<>();
+                DocumentChecker.Summary summary = checker.check(file, found::add);
+                Assert.assertEquals(expected, found.stream().map(DocumentCheckerTest::describe)
+                        .collect(Collectors.toList()));
+                Assert.assertEquals(10, summary.getWords());
+                Assert.assertEquals(3, summary.getMisspellings());
+                Assert.assertEquals(Files.size(file), summary.getBytes());
+            }
+            DocumentChecker.Misspelling brwn = new DocumentChecker(tree, 2).misspellings(file).findFirst().get();
+            Assert.assertArrayEquals(tree.suggest("brwn", 2), brwn.getSuggestions());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testApostrophesAndHyphens() throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : "don't well known blue".split(" ")) {
+            tree.add(word);
+        }
+        Path file = Files.createTempFile("document", ".txt");
+        try {
+            // "well-known" has no entry but both its parts do; "blue-grene" is reported once, as a whole
+            Files.write(file, "Don't, well-known -blue- blue-grene 'well'".getBytes(StandardCharsets.UTF_8));
+            for (int chunkSize : new int[]{1, 3, 7, 1 << 20}) {
+                DocumentChecker checker = new DocumentChecker(tree, 0, chunkSize);
+                Assert.assertEquals(Arrays.asList("25:blue-grene"), checker.misspellings(file)
+                        .map(DocumentCheckerTest::describe).collect(Collectors.toList()));
+                Assert.assertEquals(5, checker.check(file, misspelling -> { }).getWords());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testLargeDocument() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        FrozenCompactPrefixTree dictionary = new CompactPrefixTree("input/words_ospd.txt").freeze();
+        Random random = new Random(19);
+        StringBuilder text = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            if (random.nextInt(10) == 0) {
+                word = word + "qx";
+                expected.add(text.length() + ":" + word);
+            }
+            text.append(word).append(random.nextBoolean() ? " " : ".\n");
+        }
+        Path file = Files.createTempFile("document", ".txt");
+        try {
+            Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+            DocumentChecker checker = new DocumentChecker(dictionary, 0, 4096);
+            Assert.assertEquals(expected, checker.misspellings(file).parallel().map(DocumentCheckerTest::describe)
+                    .collect(Collectors.toList()));
+            DocumentChecker.Summary summary = checker.check(file, misspelling -> { });
+            Assert.assertEquals(50000, summary.getWords());
+            Assert.assertEquals(expected.size(), summary.getMisspellings());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
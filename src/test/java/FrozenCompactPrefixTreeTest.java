@@ -0,0 +1,69 @@
+import dictionary.CompactPrefixTree;
+import dictionary.Dictionary;
+import dictionary.FrozenCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/** Test file for FrozenCompactPrefixTree: the snapshot must answer exactly like the tree it was frozen from. */
+public class FrozenCompactPrefixTreeTest {
+    static final int NUM_SUGGESTIONS = 4;
+
+    @Test
+    public void testSameTreeAsMutable() {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        FrozenCompactPrefixTree frozen = tree.freeze();
+        Assert.assertEquals(tree.toString(), frozen.toString());
+    }
+
+    @Test
+    public void testSameAnswersAsMutable() {
+        String filename = "input/words_ospd.txt";
+        CompactPrefixTree tree = new CompactPrefixTree(filename);
+        Dictionary frozen = tree.freeze();
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.length() > 0) {
+                    Assert.assertTrue("Failed to find word: " + line, frozen.check(line));
+                    for (int i = 0; i <= line.length(); i++) {
+                        String prefix = line.substring(0, i);
+                        Assert.assertEquals(prefix, tree.check(prefix), frozen.check(prefix));
+                        Assert.assertTrue("Failed to find prefix: " + prefix, frozen.checkPrefix(prefix));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Assert.fail("Could not read from the file: " + e);
+        }
+
+        String[] queries = {"accer", "fatte", "flox", "forg", "forsoom", "cat", "Cat", "zzzz", "qxj", "", "x"};
+        for (String query : queries) {
+            Assert.assertEquals(query, tree.check(query), frozen.check(query));
+            Assert.assertEquals(query, tree.checkPrefix(query), frozen.checkPrefix(query));
+            Assert.assertEquals(query, Arrays.asList(tree.suggest(query, NUM_SUGGESTIONS)),
+                    Arrays.asList(frozen.suggest(query, NUM_SUGGESTIONS)));
+        }
+    }
+
+    @Test
+    public void testEmptyTree() {
+        FrozenCompactPrefixTree frozen = new CompactPrefixTree().freeze();
+        Assert.assertFalse(frozen.check("cat"));
+        Assert.assertFalse(frozen.checkPrefix("c"));
+        Assert.assertTrue(frozen.checkPrefix(""));
+        Assert.assertEquals(0, frozen.suggest("cat", NUM_SUGGESTIONS).length);
+        Assert.assertEquals("", frozen.toString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddNotSupported() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        tree.add("cat");
+        tree.freeze().add("dog");
+    }
+}
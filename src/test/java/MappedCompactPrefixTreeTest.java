@@ -0,0 +1,78 @@
+import dictionary.CompactPrefixTree;
+import dictionary.MappedCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/** Test file for the binary dictionary format: save and load back through a memory-mapped file. */
+public class MappedCompactPrefixTreeTest {
+    static final int NUM_SUGGESTIONS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        Path file = folder.getRoot().toPath().resolve("words.cptd");
+        tree.save(file);
+
+        MappedCompactPrefixTree mapped = MappedCompactPrefixTree.load(file);
+        Assert.assertEquals(tree.toString(), mapped.toString());
+        Assert.assertEquals(tree.freeze().numNodes(), mapped.numNodes());
+        Assert.assertEquals(79339, mapped.numWords());
+
+        String[] queries = {"accer", "fatte", "flox", "forg", "forsoom", "cat", "Baseball", "zzzz", "", "ab"};
+        for (String query : queries) {
+            Assert.assertEquals(query, tree.check(query), mapped.check(query));
+            Assert.assertEquals(query, tree.checkPrefix(query), mapped.checkPrefix(query));
+            Assert.assertEquals(query, Arrays.asList(tree.suggest(query, NUM_SUGGESTIONS)),
+                    Arrays.asList(mapped.suggest(query, NUM_SUGGESTIONS)));
+        }
+    }
+
+    @Test
+    public void testEmptyTree() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("empty.cptd");
+        new CompactPrefixTree().save(file);
+        MappedCompactPrefixTree mapped = MappedCompactPrefixTree.load(file);
+        Assert.assertEquals(0, mapped.numNodes());
+        Assert.assertFalse(mapped.check("cat"));
+        Assert.assertTrue(mapped.checkPrefix(""));
+    }
+
+    @Test
+    public void testCorruptFileRejected() throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        tree.add("cat");
+        tree.add("cart");
+        Path file = folder.getRoot().toPath().resolve("small.cptd");
+        tree.save(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write('x');
+        }
+        try {
+            MappedCompactPrefixTree.load(file);
+            Assert.fail("Loaded a file with a bad checksum");
+        } catch (IOException e) {
+            // expected
+        }
+        Assert.assertTrue(MappedCompactPrefixTree.load(file, false).checkPrefix("ca"));
+
+        Files.write(file, new byte[]{1, 2, 3});
+        try {
+            MappedCompactPrefixTree.load(file, false);
+            Assert.fail("Loaded a file without a header");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
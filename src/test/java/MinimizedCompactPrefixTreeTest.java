@@ -0,0 +1,76 @@
+import dictionary.CompactPrefixTree;
+import dictionary.MinimizedCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** Test file for MinimizedCompactPrefixTree: shared suffixes, same answers as the tree it was created from. */
+public class MinimizedCompactPrefixTreeTest {
+    static final int NUM_SUGGESTIONS = 4;
+
+    @Test
+    public void testSharesSuffixes() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : new String[]{"walk", "walked", "walking", "talk", "talked", "talking"}) {
+            tree.add(word);
+        }
+        MinimizedCompactPrefixTree minimized = tree.minimize();
+        Assert.assertEquals(5, minimized.numNodes()); // root, "talk"*, "walk"*, "ed"*, "ing"*
+        Assert.assertEquals(7, tree.treeStats().getNodeCount());
+        Assert.assertEquals(6, minimized.numWords());
+        Assert.assertEquals(tree.toString(), minimized.toString());
+        Assert.assertTrue(minimized.check("Talking"));
+        Assert.assertFalse(minimized.check("walkin"));
+        Assert.assertTrue(minimized.checkPrefix("walki"));
+        Assert.assertFalse(minimized.checkPrefix("walkt"));
+    }
+
+    @Test
+    public void testSameAnswersAsTree() throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        MinimizedCompactPrefixTree minimized = tree.minimize();
+        Assert.assertTrue(minimized.numNodes() < tree.treeStats().getNodeCount() / 2);
+        Assert.assertEquals(tree.toString(), minimized.toString());
+
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        Assert.assertEquals(words.size(), minimized.numWords());
+        Assert.assertEquals(tree.words().collect(Collectors.toList()), minimized.words().collect(Collectors.toList()));
+        for (String word : words) {
+            Assert.assertTrue(word, minimized.check(word));
+            Assert.assertEquals(word + "s", tree.check(word + "s"), minimized.check(word + "s"));
+            String prefix = word.substring(0, word.length() / 2);
+            Assert.assertEquals(prefix, tree.check(prefix), minimized.check(prefix));
+        }
+
+        String[] queries = {"accer", "fatte", "flox", "forg", "forsoom", "walkinh", "Cat", "zzzz", "qxj", "", "x"};
+        for (String query : queries) {
+            Assert.assertEquals(query, tree.check(query), minimized.check(query));
+            Assert.assertEquals(query, tree.checkPrefix(query), minimized.checkPrefix(query));
+            Assert.assertEquals(query, Arrays.asList(tree.suggest(query, NUM_SUGGESTIONS)),
+                    Arrays.asList(minimized.suggest(query, NUM_SUGGESTIONS)));
+        }
+    }
+
+    @Test
+    public void testEmptyTree() {
+        MinimizedCompactPrefixTree minimized = new CompactPrefixTree().minimize();
+        Assert.assertEquals(0, minimized.numNodes());
+        Assert.assertFalse(minimized.check("cat"));
+        Assert.assertTrue(minimized.checkPrefix(""));
+        Assert.assertEquals(0, minimized.suggest("cat", NUM_SUGGESTIONS).length);
+        Assert.assertEquals("", minimized.toString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddNotSupported() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        tree.add("cat");
+        tree.minimize().add("dog");
+    }
+}
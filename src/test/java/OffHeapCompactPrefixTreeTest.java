@@ -0,0 +1,78 @@
+import dictionary.CompactPrefixTree;
+import dictionary.OffHeapCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/** Test file for OffHeapCompactPrefixTree: same answers as the tree, and nothing new starts once closed. */
+public class OffHeapCompactPrefixTreeTest {
+    static final int NUM_SUGGESTIONS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameAnswers() throws IOException {
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        Path file = folder.getRoot().toPath().resolve("words.cptd");
+        tree.save(file);
+        try (OffHeapCompactPrefixTree offHeap = tree.toOffHeap();
+             OffHeapCompactPrefixTree loaded = OffHeapCompactPrefixTree.load(file)) {
+            Assert.assertEquals(tree.toString(), offHeap.toString());
+            Assert.assertEquals(tree.toString(), loaded.toString());
+            Assert.assertEquals(79339, offHeap.numWords());
+            Assert.assertEquals(Files.size(file), offHeap.offHeapBytes());
+
+            String[] queries = {"accer", "fatte", "flox", "forg", "forsoom", "cat", "Baseball", "zzzz", "", "ab"};
+            for (String query : queries) {
+                Assert.assertEquals(query, tree.check(query), offHeap.check(query));
+                Assert.assertEquals(query, tree.checkPrefix(query), loaded.checkPrefix(query));
+                Assert.assertEquals(query, Arrays.asList(tree.suggest(query, NUM_SUGGESTIONS)),
+                        Arrays.asList(offHeap.suggest(query, NUM_SUGGESTIONS)));
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyTree() {
+        try (OffHeapCompactPrefixTree offHeap = new CompactPrefixTree().toOffHeap()) {
+            Assert.assertEquals(0, offHeap.numNodes());
+            Assert.assertFalse(offHeap.check("cat"));
+            Assert.assertTrue(offHeap.checkPrefix(""));
+        }
+    }
+
+    @Test
+    public void testClose() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        tree.add("cat");
+        tree.add("cart");
+        OffHeapCompactPrefixTree offHeap = tree.toOffHeap();
+        Assert.assertTrue(offHeap.check("cart"));
+        try {
+            offHeap.add("dog");
+            Assert.fail("Added a word to a read-only dictionary");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Iterator<String> before = offHeap.iterator(); // a reader that started before close
+        Assert.assertEquals("cart", before.next());
+        offHeap.close();
+        offHeap.close(); // no effect
+        Assert.assertEquals("cat", before.next()); // still reads the memory, which is freed later
+        Assert.assertEquals(0, offHeap.offHeapBytes());
+        try {
+            offHeap.check("cat");
+            Assert.fail("Checked a word in a closed dictionary");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
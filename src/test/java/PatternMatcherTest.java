@@ -0,0 +1,69 @@
+import dictionary.CaseFolding;
+import dictionary.CompactPrefixTree;
+import dictionary.FrozenCompactPrefixTree;
+import dictionary.MinimizedCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/** Test file for match: wildcard patterns, compared with a regex over the whole word list. */
+public class PatternMatcherTest {
+
+    /* The same pattern as a regex, for the patterns in these tests */
+    private static Pattern toRegex(String pattern) {
+        String regex = pattern.replace("*", ".*").replace("?", ".").replace("[!", "[^");
+        return Pattern.compile(regex);
+    }
+
+    @Test
+    public void testMatchesRegex() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        FrozenCompactPrefixTree frozen = tree.freeze();
+        MinimizedCompactPrefixTree minimized = tree.minimize();
+        String[] patterns = {"c?t", "ca*s", "[aeiou]??", "*", "*ing", "q*[!u]*", "??", "[x-z]*[aeiou][aeiou]",
+                "s*s*s*s", "cat", "catz", "*zz*", "[b-d]?[!a-y]", "a**b", "*q"};
+        for (String pattern : patterns) {
+            Pattern regex = toRegex(pattern);
+            List<String> expected = words.stream().filter(w -> regex.matcher(w).matches()).collect(Collectors.toList());
+            Assert.assertEquals(pattern, expected, Arrays.asList(tree.match(pattern, Integer.MAX_VALUE)));
+            Assert.assertEquals(pattern, expected, Arrays.asList(frozen.match(pattern, Integer.MAX_VALUE)));
+            Assert.assertEquals(pattern, expected, Arrays.asList(minimized.match(pattern, Integer.MAX_VALUE, 3)));
+            List<String> first = expected.subList(0, Math.min(5, expected.size()));
+            Assert.assertEquals(pattern, first, Arrays.asList(tree.match(pattern, 5)));
+            Assert.assertEquals(pattern, first, Arrays.asList(tree.match(pattern, 5, 4)));
+        }
+        Assert.assertEquals(Arrays.asList("cat", "cot", "cut"), Arrays.asList(tree.match("C?T", 10)));
+        Assert.assertEquals(0, tree.match("c?t", 0).length);
+    }
+
+    @Test
+    public void testSyntax() {
+        CompactPrefixTree tree = new CompactPrefixTree(CaseFolding.NONE);
+        for (String word : new String[]{"a*b", "a?b", "aab", "A-Z", "a]", "[x]", "Cat", "cat", "çat"}) {
+            tree.add(word);
+        }
+        Assert.assertEquals(Arrays.asList("a*b"), Arrays.asList(tree.match("a\\*b", 10)));
+        Assert.assertEquals(Arrays.asList("a*b", "a?b", "aab"), Arrays.asList(tree.match("a?b", 10)));
+        Assert.assertEquals(Arrays.asList("A-Z"), Arrays.asList(tree.match("[A-Z][-]?", 10)));
+        Assert.assertEquals(Arrays.asList("a]"), Arrays.asList(tree.match("a[\\]]", 10)));
+        Assert.assertEquals(Arrays.asList("[x]"), Arrays.asList(tree.match("\\[*", 10)));
+        Assert.assertEquals(Arrays.asList("Cat"), Arrays.asList(tree.match("[A-Z]at", 10)));
+        Assert.assertEquals(Arrays.asList("cat", "çat"), Arrays.asList(tree.match("[^A-Z]at", 10)));
+        Assert.assertEquals(Arrays.asList("çat"), Arrays.asList(tree.match("ç*", 10)));
+        for (String bad : new String[]{"[abc", "a[]", "[z-a]", "ab\\"}) {
+            try {
+                tree.match(bad, 10);
+                Assert.fail(bad);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
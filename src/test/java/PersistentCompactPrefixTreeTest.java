@@ -0,0 +1,83 @@
+import dictionary.CaseFolding;
+import dictionary.CompactPrefixTree;
+import dictionary.PersistentCompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/** Test file for PersistentCompactPrefixTree: old versions don't change, and diff lists the changed words. */
+public class PersistentCompactPrefixTreeTest {
+
+    private static List<String> describe(PersistentCompactPrefixTree from, PersistentCompactPrefixTree to) {
+        return PersistentCompactPrefixTree.diff(from, to).map(Object::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testVersions() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        PersistentCompactPrefixTree v0 = PersistentCompactPrefixTree.of(words, CaseFolding.LOWER);
+        String before = v0.toString();
+        Assert.assertEquals(new CompactPrefixTree("input/words_ospd.txt").toString(), before);
+
+        PersistentCompactPrefixTree v1 = v0.add("Catz").add("cabz");
+        PersistentCompactPrefixTree v2 = v1.remove("cat").remove("catz").remove("nosuchword");
+        Assert.assertSame(v1, v1.add("catz"));
+        Assert.assertEquals(2, v1.version());
+        Assert.assertEquals(4, v2.version());
+
+        Assert.assertEquals(before, v0.toString());
+        Assert.assertTrue(v0.check("cat"));
+        Assert.assertFalse(v0.check("catz"));
+        Assert.assertTrue(v1.check("catz"));
+        Assert.assertFalse(v2.check("cat"));
+        Assert.assertTrue(v2.check("cats"));
+        Assert.assertTrue(v2.checkPrefix("cat"));
+
+        Assert.assertEquals(Arrays.asList("+cabz", "+catz"), describe(v0, v1));
+        Assert.assertEquals(Arrays.asList("-cat", "-catz"), describe(v1, v2));
+        Assert.assertEquals(Arrays.asList("-cabz", "+cat"), describe(v2, v0));
+        Assert.assertEquals(0, PersistentCompactPrefixTree.diff(v2, v2).count());
+    }
+
+    @Test
+    public void testDiffMatchesWordSets() {
+        String[] words = {"a", "an", "and", "ant", "ante", "anti", "b", "ban", "band", "bandana", "bane", "can", "cane"};
+        Random random = new Random(22);
+        PersistentCompactPrefixTree first = PersistentCompactPrefixTree.empty(CaseFolding.LOWER);
+        PersistentCompactPrefixTree previous = first;
+        TreeSet<String> previousWords = new TreeSet<>();
+        for (int i = 0; i < 300; i++) {
+            PersistentCompactPrefixTree current = previous;
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                String word = words[random.nextInt(words.length)];
+                current = random.nextBoolean() ? current.add(word) : current.remove(word);
+            }
+            TreeSet<String> currentWords = current.words().collect(Collectors.toCollection(TreeSet::new));
+            List<String> expected = new ArrayList<>();
+            TreeSet<String> all = new TreeSet<>(previousWords);
+            all.addAll(currentWords);
+            for (String word : all) {
+                if (previousWords.contains(word) != currentWords.contains(word)) {
+                    expected.add((currentWords.contains(word) ? "+" : "-") + word);
+                }
+            }
+            Assert.assertEquals(expected, describe(previous, current));
+            // the same words built separately: nothing is shared, but nothing changed either
+            Assert.assertEquals(0, PersistentCompactPrefixTree.diff(current,
+                    PersistentCompactPrefixTree.of(currentWords, CaseFolding.LOWER)).count());
+            previous = current;
+            previousWords = currentWords;
+        }
+        Assert.assertEquals(previousWords.stream().map(w -> "+" + w).collect(Collectors.toList()),
+                describe(first, previous));
+    }
+}
@@ -0,0 +1,111 @@
+import dictionary.CompactPrefixTree;
+import dictionary.FrozenCompactPrefixTree;
+import dictionary.PrefixCursor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/** Test file for PrefixCursor: typing char by char must give the same answers as looking up the whole text. */
+public class PrefixCursorTest {
+
+    @Test
+    public void testTyping() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        tree.add("the", 100);
+        tree.add("then", 50);
+        tree.add("theory", 70);
+        tree.add("this", 80);
+        PrefixCursor cursor = tree.cursor();
+        Assert.assertTrue(cursor.isPrefix());
+        Assert.assertFalse(cursor.isWord());
+        Assert.assertArrayEquals(new String[]{"the", "this"}, cursor.completions(2));
+
+        Assert.assertTrue(cursor.advance('T'));
+        Assert.assertTrue(cursor.advance('h'));
+        Assert.assertFalse(cursor.isWord());
+        Assert.assertTrue(cursor.advance('e'));
+        Assert.assertTrue(cursor.isWord());
+        Assert.assertArrayEquals(new String[]{"the", "theory", "then"}, cursor.completions(5));
+        Assert.assertTrue(cursor.advance('o')); // inside the label "ory"
+        Assert.assertFalse(cursor.isWord());
+        Assert.assertArrayEquals(new String[]{"theory"}, cursor.completions(5));
+
+        Assert.assertFalse(cursor.advance('x')); // leaves the tree
+        Assert.assertFalse(cursor.advance('y'));
+        Assert.assertFalse(cursor.isPrefix());
+        Assert.assertEquals(0, cursor.completions(5).length);
+        Assert.assertEquals(6, cursor.length());
+        Assert.assertTrue(cursor.backspace());
+        Assert.assertTrue(cursor.backspace());
+        Assert.assertTrue(cursor.isPrefix());
+        Assert.assertTrue(cursor.backspace());
+        Assert.assertTrue(cursor.isWord());
+        Assert.assertTrue(cursor.advance('n'));
+        Assert.assertTrue(cursor.isWord());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(cursor.backspace());
+        }
+        Assert.assertFalse(cursor.backspace());
+        Assert.assertEquals(0, cursor.length());
+    }
+
+    @Test
+    public void testRandomKeystrokes() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        FrozenCompactPrefixTree frozen = tree.freeze();
+        PrefixCursor cursor = tree.cursor();
+        PrefixCursor frozenCursor = frozen.cursor();
+        Random random = new Random(17);
+        StringBuilder text = new StringBuilder();
+        String target = words.get(random.nextInt(words.size()));
+        for (int i = 0; i < 20000; i++) {
+            int action = random.nextInt(10);
+            if (action < 6 && text.length() < target.length()) { // type the next char of a word
+                char c = target.charAt(text.length());
+                text.append(c);
+                Assert.assertEquals(cursor.advance(c), frozenCursor.advance(c));
+            } else if (action < 8) { // a typo
+                char c = (char) ('a' + random.nextInt(26));
+                text.append(c);
+                Assert.assertEquals(cursor.advance(c), frozenCursor.advance(c));
+            } else {
+                Assert.assertEquals(text.length() > 0, cursor.backspace());
+                frozenCursor.backspace();
+                if (text.length() > 0) {
+                    text.setLength(text.length() - 1);
+                } else {
+                    target = words.get(random.nextInt(words.size()));
+                }
+            }
+            String typed = text.toString();
+            Assert.assertEquals(typed, tree.check(typed), cursor.isWord());
+            Assert.assertEquals(typed, tree.checkPrefix(typed), cursor.isPrefix());
+            Assert.assertEquals(typed, tree.check(typed), frozenCursor.isWord());
+            Assert.assertEquals(typed, tree.checkPrefix(typed), frozenCursor.isPrefix());
+            if (i % 50 == 0) {
+                List<String> expected = tree.words(typed).limit(3).collect(Collectors.toList());
+                Assert.assertEquals(typed, expected, Arrays.asList(cursor.completions(3)));
+                Assert.assertEquals(typed, expected, Arrays.asList(frozenCursor.completions(3)));
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyTree() {
+        PrefixCursor cursor = new CompactPrefixTree().cursor();
+        Assert.assertTrue(cursor.isPrefix());
+        Assert.assertFalse(cursor.advance('a'));
+        Assert.assertFalse(cursor.isWord());
+        Assert.assertTrue(cursor.backspace());
+        Assert.assertTrue(cursor.isPrefix());
+        Assert.assertEquals(0, cursor.completions(3).length);
+    }
+}
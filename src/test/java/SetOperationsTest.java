@@ -0,0 +1,109 @@
+import dictionary.CaseFolding;
+import dictionary.CompactPrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/** Test file for union, intersect and subtract of two CompactPrefixTrees. */
+public class SetOperationsTest {
+
+    private static CompactPrefixTree treeOf(Iterable<String> words) {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        for (String word : words) {
+            tree.add(word);
+        }
+        return tree;
+    }
+
+    @Test
+    public void testRandomSets() {
+        String[] words = {"a", "an", "and", "ant", "ante", "anti", "antic", "b", "ban", "band", "bandana", "bane",
+                "can", "cane", "canes", "z", "zz"};
+        Random random = new Random(23);
+        for (int i = 0; i < 500; i++) {
+            TreeSet<String> first = new TreeSet<>();
+            TreeSet<String> second = new TreeSet<>();
+            for (String word : words) {
+                if (random.nextInt(3) == 0) {
+                    first.add(word);
+                }
+                if (random.nextInt(3) == 0) {
+                    second.add(word);
+                }
+            }
+            CompactPrefixTree a = treeOf(first);
+            CompactPrefixTree b = treeOf(second);
+            String before = a.toString();
+
+            TreeSet<String> union = new TreeSet<>(first);
+            union.addAll(second);
+            TreeSet<String> intersection = new TreeSet<>(first);
+            intersection.retainAll(second);
+            TreeSet<String> difference = new TreeSet<>(first);
+            difference.removeAll(second);
+
+            // the same tree, node for node, as adding the words one by one
+            Assert.assertEquals(treeOf(union).toString(), a.union(b).toString());
+            Assert.assertEquals(treeOf(intersection).toString(), a.intersect(b).toString());
+            Assert.assertEquals(treeOf(difference).toString(), a.subtract(b).toString());
+            Assert.assertEquals(new ArrayList<>(difference), a.subtract(b, 3).words().collect(Collectors.toList()));
+            Assert.assertEquals(before, a.toString());
+        }
+    }
+
+    @Test
+    public void testComposeDictionaries() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        CompactPrefixTree base = new CompactPrefixTree("input/words_ospd.txt");
+        CompactPrefixTree additions = treeOf(Arrays.asList("catz", "Zzyzx", "aardvark", "cab"));
+        CompactPrefixTree blocklist = treeOf(Arrays.asList("cat", "dog", "catz", "notaword"));
+
+        CompactPrefixTree composed = base.union(additions).subtract(blocklist);
+        TreeSet<String> expected = new TreeSet<>(words);
+        expected.addAll(Arrays.asList("zzyzx", "aardvark", "cab"));
+        expected.removeAll(Arrays.asList("cat", "dog"));
+        Assert.assertEquals(treeOf(expected).toString(), composed.toString());
+        Assert.assertEquals(composed.toString(), base.union(additions, 4).subtract(blocklist, 4).toString());
+        Assert.assertTrue(composed.check("ZZYZX"));
+        Assert.assertFalse(composed.check("cat"));
+        Assert.assertTrue(composed.checkPrefix("cat"));
+
+        Assert.assertEquals(Arrays.asList("aardvark", "cab"),
+                base.intersect(additions, 2).words().collect(Collectors.toList()));
+        Assert.assertEquals(base.toString(), base.union(base).toString());
+        Assert.assertEquals(base.toString(), base.intersect(base).toString());
+        Assert.assertEquals(0, base.subtract(base).words().count());
+        Assert.assertEquals(base.toString(), base.subtract(new CompactPrefixTree(), 2).toString());
+
+        composed.add("catz");
+        Assert.assertTrue(composed.check("catz"));
+        Assert.assertFalse(base.check("catz")); // the result shares no nodes with the inputs
+    }
+
+    @Test
+    public void testWeightsAndFoldings() {
+        CompactPrefixTree a = new CompactPrefixTree();
+        a.add("car", 5);
+        a.add("cart", 1);
+        CompactPrefixTree b = new CompactPrefixTree();
+        b.add("cart", 9);
+        b.add("cat", 3);
+        Assert.assertEquals(Arrays.asList("cart", "car", "cat"), Arrays.asList(a.union(b).complete("ca", 3)));
+        Assert.assertEquals(Arrays.asList("car"), Arrays.asList(a.subtract(b).complete("ca", 3)));
+
+        try {
+            a.union(new CompactPrefixTree(CaseFolding.NONE));
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
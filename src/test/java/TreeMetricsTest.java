@@ -0,0 +1,74 @@
+import dictionary.CompactPrefixTree;
+import dictionary.MetricsSnapshot;
+import dictionary.TreeMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+/** Test file for the metrics of CompactPrefixTree */
+public class TreeMetricsTest {
+
+    private static CompactPrefixTree smallTree() {
+        CompactPrefixTree tree = new CompactPrefixTree();
+        tree.add("cat");
+        tree.add("cart");
+        tree.add("dog");
+        return tree; // root -> "ca" -> ("rt"*, "t"*), "dog"*
+    }
+
+    @Test
+    public void testTreeStats() {
+        MetricsSnapshot.TreeStats stats = smallTree().treeStats();
+        Assert.assertEquals(5, stats.getNodeCount());
+        Assert.assertEquals(3, stats.getWordCount());
+        Assert.assertEquals(8, stats.getTotalLabelChars());
+        Assert.assertArrayEquals(new long[]{1, 2, 2}, stats.getDepthCounts());
+        Assert.assertArrayEquals(new long[]{3, 0, 2}, stats.getFanOutCounts());
+        Assert.assertTrue(stats.getEstimatedBytes() > 5 * 32);
+    }
+
+    @Test
+    public void testOperationMetrics() {
+        CompactPrefixTree tree = smallTree();
+        TreeMetrics metrics = tree.enableMetrics();
+        Assert.assertTrue(tree.check("cat")); // root, "ca", "t"
+        Assert.assertFalse(tree.check("cow")); // root, "ca"
+        Assert.assertTrue(tree.checkPrefix("do"));
+        tree.suggest("cst", 2);
+        tree.add("dot");
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        Assert.assertEquals(2, snapshot.getCheck().getCount());
+        Assert.assertEquals(2.5, snapshot.getCheck().getMeanNodesVisited(), 1e-9);
+        Assert.assertEquals(3, snapshot.getCheck().getMaxNodesVisited());
+        Assert.assertEquals(1, snapshot.getCheckPrefix().getCount());
+        Assert.assertEquals(1, snapshot.getSuggest().getCount());
+        Assert.assertTrue(snapshot.getSuggest().getMaxNodesVisited() > 2);
+        Assert.assertEquals(1, snapshot.getAdd().getCount());
+        Assert.assertTrue(snapshot.getCheck().getP50Nanos() <= snapshot.getCheck().getMaxNanos());
+        Assert.assertEquals(4, snapshot.getTree().getWordCount());
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.snapshot().getCheck().getCount());
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        CompactPrefixTree tree = smallTree();
+        TreeMetrics metrics = tree.enableMetrics();
+        tree.check("dog");
+        ObjectName name = metrics.register("metrics-test");
+        try {
+            CompositeData check = (CompositeData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Check");
+            Assert.assertEquals(1L, check.get("count"));
+            CompositeData stats = (CompositeData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Tree");
+            Assert.assertEquals(5L, stats.get("nodeCount"));
+        } finally {
+            metrics.unregister();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,97 @@
+import dictionary.CompactPrefixTree;
+import dictionary.CompactPrefixTreeBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/** Test file for countPrefix, rank, select and range. */
+public class WordCountTest {
+
+    /* Checks every query against the sorted words, for every prefix of the given words */
+    private static void checkCounts(TreeSet<String> expected, CompactPrefixTree tree, String[] words) {
+        List<String> sorted = new ArrayList<>(expected);
+        Assert.assertEquals(sorted.size(), tree.numWords());
+        for (int i = 0; i < sorted.size(); i++) {
+            Assert.assertEquals(sorted.get(i), tree.select(i));
+            Assert.assertEquals(i, tree.rank(sorted.get(i)));
+        }
+        for (String word : words) {
+            for (int length = 0; length <= word.length(); length++) {
+                String prefix = word.substring(0, length);
+                String next = prefix + Character.MAX_VALUE;
+                Assert.assertEquals(prefix, expected.subSet(prefix, next).size(), tree.countPrefix(prefix));
+                Assert.assertEquals(prefix, expected.headSet(prefix).size(), tree.rank(prefix));
+                Assert.assertEquals(prefix, expected.headSet(prefix + "m").size(), tree.rank(prefix + "m"));
+            }
+        }
+        for (int from = 0; from <= sorted.size(); from++) {
+            for (int to = from; to <= sorted.size(); to++) {
+                Assert.assertEquals(sorted.subList(from, to), tree.range(from, to).collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @Test
+    public void testCountsAfterChanges() {
+        String[] words = {"a", "an", "and", "ant", "ante", "anti", "antic", "b", "ban", "band", "bandana", "bane",
+                "can", "cane", "canes", "z", "zz"};
+        Random random = new Random(24);
+        CompactPrefixTree tree = new CompactPrefixTree();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 300; i++) {
+            String word = words[random.nextInt(words.length)];
+            if (random.nextInt(3) == 0) {
+                tree.remove(word);
+                expected.remove(word);
+            } else {
+                tree.add(word); // adding a word twice must not count it twice
+                expected.add(word);
+            }
+            checkCounts(expected, tree, words);
+        }
+        checkCounts(expected, new CompactPrefixTreeBuilder().addAll(expected).build(), words);
+        checkCounts(expected, CompactPrefixTreeBuilder.buildParallel(expected, 2), words);
+        checkCounts(expected, tree.union(new CompactPrefixTree()), words);
+    }
+
+    @Test
+    public void testPages() throws IOException {
+        List<String> words = Files.readAllLines(Paths.get("input/words_ospd.txt"));
+        CompactPrefixTree tree = new CompactPrefixTree("input/words_ospd.txt");
+        Assert.assertEquals(words.size(), tree.numWords());
+        Assert.assertEquals(words.subList(500, 550), tree.range(500, 550).collect(Collectors.toList()));
+        Assert.assertEquals(words.subList(words.size() - 3, words.size()),
+                tree.range(words.size() - 3, words.size()).collect(Collectors.toList()));
+        for (int i = 0; i < words.size(); i += 997) {
+            Assert.assertEquals(words.get(i), tree.select(i));
+            Assert.assertEquals(i, tree.rank(words.get(i)));
+        }
+
+        Assert.assertEquals(tree.words("cat").count(), tree.countPrefix("CAT"));
+        Assert.assertEquals(0, tree.countPrefix("catq"));
+        Assert.assertEquals(tree.words("cat").collect(Collectors.toList()),
+                tree.range("cat", "cau").collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList("zyzzyva", "zyzzyvas"), tree.range("zyzzyva", "zz").collect(Collectors.toList()));
+        Assert.assertEquals(0, tree.range("dog", "cat").count());
+
+        try {
+            tree.select(words.size());
+            Assert.fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            tree.range(10, 5);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+}